@@ -32,6 +32,22 @@ public class Components {
     private String elasticsearchCluster;
 	@Value("${elasticsearch.node}")
     private String elasticsearchNode;
+	@Value("${elasticsearch.connectTimeoutMs:2000}")
+    private int elasticsearchConnectTimeoutMs;
+	@Value("${elasticsearch.socketTimeoutMs:10000}")
+    private int elasticsearchSocketTimeoutMs;
+	@Value("${elasticsearch.connectionRequestTimeoutMs:1000}")
+    private int elasticsearchConnectionRequestTimeoutMs;
+	@Value("${elasticsearch.maxConnTotal:50}")
+    private int elasticsearchMaxConnTotal;
+	@Value("${elasticsearch.maxConnPerRoute:20}")
+    private int elasticsearchMaxConnPerRoute;
+	@Value("${elasticsearch.keepAliveMs:60000}")
+    private long elasticsearchKeepAliveMs;
+	@Value("${elasticsearch.breaker.failureThreshold:5}")
+    private int elasticsearchBreakerFailureThreshold;
+	@Value("${elasticsearch.breaker.openMs:30000}")
+    private long elasticsearchBreakerOpenMs;
 	
 	
 	public String getActiveHost() {
@@ -106,6 +122,54 @@ public class Components {
 	public void setElasticsearchNode(String elasticsearchNode) {
 		this.elasticsearchNode = elasticsearchNode;
 	}
+	public int getElasticsearchConnectTimeoutMs() {
+		return elasticsearchConnectTimeoutMs;
+	}
+	public void setElasticsearchConnectTimeoutMs(int elasticsearchConnectTimeoutMs) {
+		this.elasticsearchConnectTimeoutMs = elasticsearchConnectTimeoutMs;
+	}
+	public int getElasticsearchSocketTimeoutMs() {
+		return elasticsearchSocketTimeoutMs;
+	}
+	public void setElasticsearchSocketTimeoutMs(int elasticsearchSocketTimeoutMs) {
+		this.elasticsearchSocketTimeoutMs = elasticsearchSocketTimeoutMs;
+	}
+	public int getElasticsearchConnectionRequestTimeoutMs() {
+		return elasticsearchConnectionRequestTimeoutMs;
+	}
+	public void setElasticsearchConnectionRequestTimeoutMs(int elasticsearchConnectionRequestTimeoutMs) {
+		this.elasticsearchConnectionRequestTimeoutMs = elasticsearchConnectionRequestTimeoutMs;
+	}
+	public int getElasticsearchMaxConnTotal() {
+		return elasticsearchMaxConnTotal;
+	}
+	public void setElasticsearchMaxConnTotal(int elasticsearchMaxConnTotal) {
+		this.elasticsearchMaxConnTotal = elasticsearchMaxConnTotal;
+	}
+	public int getElasticsearchMaxConnPerRoute() {
+		return elasticsearchMaxConnPerRoute;
+	}
+	public void setElasticsearchMaxConnPerRoute(int elasticsearchMaxConnPerRoute) {
+		this.elasticsearchMaxConnPerRoute = elasticsearchMaxConnPerRoute;
+	}
+	public long getElasticsearchKeepAliveMs() {
+		return elasticsearchKeepAliveMs;
+	}
+	public void setElasticsearchKeepAliveMs(long elasticsearchKeepAliveMs) {
+		this.elasticsearchKeepAliveMs = elasticsearchKeepAliveMs;
+	}
+	public int getElasticsearchBreakerFailureThreshold() {
+		return elasticsearchBreakerFailureThreshold;
+	}
+	public void setElasticsearchBreakerFailureThreshold(int elasticsearchBreakerFailureThreshold) {
+		this.elasticsearchBreakerFailureThreshold = elasticsearchBreakerFailureThreshold;
+	}
+	public long getElasticsearchBreakerOpenMs() {
+		return elasticsearchBreakerOpenMs;
+	}
+	public void setElasticsearchBreakerOpenMs(long elasticsearchBreakerOpenMs) {
+		this.elasticsearchBreakerOpenMs = elasticsearchBreakerOpenMs;
+	}
 	
 	
 }
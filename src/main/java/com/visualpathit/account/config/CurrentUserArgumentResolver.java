@@ -0,0 +1,134 @@
+package com.visualpathit.account.config;
+
+import com.visualpathit.account.event.UserChangedEvent;
+import com.visualpathit.account.model.SessionUser;
+import com.visualpathit.account.model.User;
+import com.visualpathit.account.service.CacheInvalidationBus;
+import com.visualpathit.account.service.SecurityService;
+import com.visualpathit.account.service.UserService;
+import com.visualpathit.account.utils.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves {@link CurrentUser} parameters from a SessionUser snapshot kept in
+ * the HTTP session, so an authenticated request costs no user query.
+ *
+ * A snapshot is trusted while it is newer than the time its username was last
+ * seen valid on this node. That time lives in a cache on the
+ * CacheInvalidationBus: a profile or photo change evicts it on every node, and
+ * the next request of each of the user's sessions reloads its snapshot. The
+ * cache TTL bounds how long a snapshot goes without being read again.
+ *
+ * A User parameter receives SessionUser#toUser(), a detached stub that must
+ * not be saved; handlers that modify the user load it through UserService.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver, InitializingBean {
+
+    /** Name of the snapshot validity cache on the CacheInvalidationBus */
+    public static final String SESSION_USERS_CACHE = "sessionUsers";
+
+    public static final String SESSION_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".SNAPSHOT";
+    private static final String REQUEST_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".RESOLVED";
+
+    private static final Logger logger = LoggerFactory.getLogger(CurrentUserArgumentResolver.class);
+
+    @Autowired
+    private SecurityService securityService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    @Value("${cache.sessionUsers.ttlMs:300000}")
+    private long cacheTtlMs = 300000;
+
+    @Value("${cache.sessionUsers.maxEntries:10000}")
+    private int cacheMaxEntries = 10000;
+
+    /** Time from which snapshots of a username are valid, by username */
+    private ExpiringCache<String, Long> validSince;
+
+    /** Last load time handed out, so two loads on this node never share one */
+    private final AtomicLong lastLoad = new AtomicLong();
+
+    @Override
+    public void afterPropertiesSet() {
+        validSince = new ExpiringCache<>(cacheTtlMs, cacheMaxEntries);
+        invalidationBus.register(SESSION_USERS_CACHE, validSince);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(final UserChangedEvent event) {
+        if (event.getUser() != null && event.getUser().getUsername() != null) {
+            invalidationBus.invalidate(SESSION_USERS_CACHE, event.getUser().getUsername());
+        }
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && (type == SessionUser.class || type == User.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        SessionUser current = (SessionUser) webRequest.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (current == null) {
+            current = resolve(webRequest);
+            if (current == null) {
+                return null;
+            }
+            webRequest.setAttribute(REQUEST_ATTRIBUTE, current, RequestAttributes.SCOPE_REQUEST);
+        }
+        return parameter.getParameterType() == User.class ? current.toUser() : current;
+    }
+
+    private SessionUser resolve(NativeWebRequest webRequest) {
+        String username = securityService.findLoggedInUsername();
+        if (username == null) {
+            return null;
+        }
+
+        SessionUser snapshot = (SessionUser) webRequest.getAttribute(SESSION_ATTRIBUTE, RequestAttributes.SCOPE_SESSION);
+        Long since = validSince.get(username);
+        if (snapshot != null && username.equals(snapshot.getUsername())
+                && since != null && snapshot.getLoadedAt() >= since) {
+            return snapshot;
+        }
+
+        long loadedAt = lastLoad.updateAndGet(last -> Math.max(System.currentTimeMillis(), last + 1));
+        if (since == null) {
+            // Before the query, so a change evicting it while the query runs also invalidates this load
+            validSince.putIfAbsent(username, loadedAt);
+        }
+        User user = userService.findByUsername(username);
+        if (user == null) {
+            logger.error("User not found: {}", username);
+            webRequest.removeAttribute(SESSION_ATTRIBUTE, RequestAttributes.SCOPE_SESSION);
+            return null;
+        }
+        snapshot = new SessionUser(user, loadedAt);
+        webRequest.setAttribute(SESSION_ATTRIBUTE, snapshot, RequestAttributes.SCOPE_SESSION);
+        logger.debug("Session snapshot of {} refreshed", username);
+        return snapshot;
+    }
+}
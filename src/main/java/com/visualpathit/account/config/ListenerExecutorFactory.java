@@ -0,0 +1,49 @@
+package com.visualpathit.account.config;
+
+import com.visualpathit.account.utils.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+
+/**
+ * Factory class to create the task executor RabbitMQ listener containers run their consumers on.
+ * Every consumer holds its thread for as long as it runs, including while a listener waits on
+ * JDBC, Memcached or Elasticsearch, so with virtual threads rabbitmq.consumer.maxConcurrency can
+ * go into the hundreds; that setting, per listener, is the concurrency cap.
+ */
+public class ListenerExecutorFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListenerExecutorFactory.class);
+
+    private boolean virtualThreads = false;
+    private String threadNamePrefix = "rabbit-listener-";
+    private String pinnedThreadTrace = "short";
+
+    /**
+     * Create the executor; one new thread per consumer, as the containers' default executor does
+     */
+    public TaskExecutor createExecutor() {
+        if (virtualThreads && VirtualThreads.isSupported() && !"off".equals(pinnedThreadTrace)) {
+            VirtualThreads.tracePinnedThreads(pinnedThreadTrace);
+        }
+        logger.info("RabbitMQ listeners run on {} threads",
+                virtualThreads && VirtualThreads.isSupported() ? "virtual" : "platform");
+        return new SimpleAsyncTaskExecutor(VirtualThreads.threadFactory(threadNamePrefix, virtualThreads));
+    }
+
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public void setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    /**
+     * "short", "full" or "off"
+     */
+    public void setPinnedThreadTrace(String pinnedThreadTrace) {
+        this.pinnedThreadTrace = pinnedThreadTrace;
+    }
+}
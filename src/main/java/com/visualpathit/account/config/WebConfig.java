@@ -8,7 +8,6 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * Configuration Spring MVC pour servir les ressources statiques
- * notamment les photos de profil uploadées par les utilisateurs
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
@@ -18,13 +17,8 @@ public class WebConfig implements WebMvcConfigurer {
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Servir les photos de profil uploadées depuis le volume Docker persistant
-        // Ce répertoire est monté comme volume dans docker-compose.yml
-        // IMPORTANT: file:/// avec 3 slashes pour les chemins absolus
-        registry
-            .addResourceHandler("/uploads/**")
-            .addResourceLocations("file:///var/lib/facelink/uploads/")
-            .setCachePeriod(3600);
+        // Les photos de profil (/uploads/profiles/**) sont servies par StaticResourceController,
+        // avec ETag, requêtes conditionnelles et Range ; le reste du volume n'est pas exposé
 
         // Get the real path to webapp resources
         String resourcePath = servletContext.getRealPath("/resources/");
@@ -1,117 +1,210 @@
 package com.visualpathit.account.controller;
 
 import java.io.IOException;
-import java.util.List;
-
-import org.apache.http.HttpHost;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.index.IndexRequest;
-import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.RequestOptions;
-import org.elasticsearch.client.RestHighLevelClient;
-import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.ModelAndView;
 
+import com.visualpathit.account.model.Post;
 import com.visualpathit.account.model.User;
+import com.visualpathit.account.service.PostIndexer;
+import com.visualpathit.account.service.PostService;
+import com.visualpathit.account.service.UserIndexManager;
+import com.visualpathit.account.service.UserIndexer;
 import com.visualpathit.account.service.UserService;
-import com.visualpathit.account.utils.ElasticsearchUtil;
-
+import com.visualpathit.account.utils.AsyncElasticsearch;
+
+/**
+ * Manual Elasticsearch operations on the users index.
+ *
+ * Calls go through the client's async API: the servlet thread is handed back to
+ * the container as soon as the request is sent, and the view is rendered when
+ * Elasticsearch answers (or the deferred result times out). Longer work, such
+ * as loading every user and post or a full users rebuild, runs on a small
+ * background pool of its own.
+ */
 @Controller
-public class ElasticSearchController {
+public class ElasticSearchController implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ElasticSearchController.class);
+
+    private static final String VIEW = "elasticeSearchRes";
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostIndexer postIndexer;
+
+    @Autowired
+    private UserIndexManager userIndexManager;
+
+    @Autowired
+    private AsyncElasticsearch asyncElasticsearch;
+
+    @Value("${elasticsearch.async.timeoutMs:15000}")
+    private long timeoutMs = 15000;
+
+    private ExecutorService background;
+
+    /**
+     * Load every user and post and index them. The database load runs on the
+     * background pool, so the servlet thread is released before any of it starts.
+     */
     @RequestMapping(value = "/user/elasticsearch", method = RequestMethod.GET)
-    public String insert(final Model model) {
-        try {
-            List<User> users = userService.getList();
-
-            try (RestHighLevelClient client = ElasticsearchUtil.getRestHighLevelClient()) {
-                if (client == null) {
-                    model.addAttribute("result", "Failed to connect to Elasticsearch. Please check if Elasticsearch is running.");
-                    return "elasticeSearchRes";
-                }
-
-                for (User user : users) {
-                    IndexRequest indexRequest = new IndexRequest("users", "_doc", String.valueOf(user.getId()))
-                            .source(XContentFactory.jsonBuilder()
-                                    .startObject()
-                                    .field("name", user.getUsername())
-                                    .field("DOB", user.getDateOfBirth())
-                                    .field("fatherName", user.getFatherName())
-                                    .field("motherName", user.getMotherName())
-                                    .field("gender", user.getGender())
-                                    .field("nationality", user.getNationality())
-                                    .field("phoneNumber", user.getPhoneNumber())
-                                    .endObject());
-
-                    IndexResponse response = client.index(indexRequest, RequestOptions.DEFAULT);
-                    String res = response.getResult().toString();
-                    System.out.println(res);
-                }
-            }
+    public DeferredResult<ModelAndView> insert() {
+        CompletableFuture<BulkResponse> call = CompletableFuture
+                .supplyAsync(this::loadForIndexing, background)
+                .thenCompose(bulkRequest -> bulkRequest.numberOfActions() == 0
+                        ? CompletableFuture.<BulkResponse>completedFuture(null)
+                        : asyncElasticsearch.execute(
+                                (client, listener) -> client.bulkAsync(bulkRequest, RequestOptions.DEFAULT, listener)));
+        return respond(call, "result",
+                response -> response != null && response.hasFailures()
+                        ? "Error indexing users: " + response.buildFailureMessage()
+                        : "Users indexed successfully in Elasticsearch",
+                "Error indexing users: ");
+    }
 
-            model.addAttribute("result", "Users indexed successfully in Elasticsearch");
-            return "elasticeSearchRes";
-        } catch (Exception e) {
-            e.printStackTrace();
-            model.addAttribute("result", "Error indexing users: " + e.getMessage());
-            return "elasticeSearchRes";
+    /**
+     * Queue every post on the indexer and build the bulk request for every user
+     */
+    private BulkRequest loadForIndexing() {
+        // Posts go through the indexer so each one lands in its monthly index
+        for (Post post : postService.findAllPosts()) {
+            postIndexer.enqueue(post.getId(), PostIndexer.toDocument(post));
         }
-    }
 
-    @RequestMapping(value = "/rest/users/view/{id}", method = RequestMethod.GET)
-    public String view(@PathVariable final String id, final Model model) throws IOException {
-        try (RestHighLevelClient client = ElasticsearchUtil.getRestHighLevelClient()) {
-            GetRequest getRequest = new GetRequest("users", "_doc", id);
-            GetResponse getResponse = client.get(getRequest, RequestOptions.DEFAULT);
+        BulkRequest bulkRequest = new BulkRequest();
+        for (User user : userService.getList()) {
+            bulkRequest.add(new IndexRequest(UserIndexer.USERS_INDEX)
+                    .id(String.valueOf(user.getId()))
+                    .source(UserIndexer.toDocument(user)));
+        }
+        return bulkRequest;
+    }
 
-            System.out.println(getResponse.getSourceAsString());
-            model.addAttribute("res", getResponse.getSource().get("name"));
+    /**
+     * Start rebuilding the users index from the database into a new version and swapping it in.
+     * Returns at once; the outcome is logged by UserIndexManager, or here if it fails.
+     */
+    @RequestMapping(value = "/user/elasticsearch/reindex", method = RequestMethod.POST)
+    public String reindex(final Model model) {
+        if (userIndexManager.isRunning()) {
+            model.addAttribute("result", "Not reindexed: A users reindex is already running");
+            return VIEW;
         }
+        background.execute(() -> {
+            try {
+                userIndexManager.reindex();
+            } catch (IllegalStateException e) {
+                logger.warn("Users reindex not started: {}", e.getMessage());
+            } catch (Exception e) {
+                logger.error("Reindex failed", e);
+            }
+        });
+        model.addAttribute("result", "Users reindex started");
+        return VIEW;
+    }
 
-        return "elasticeSearchRes";
+    @RequestMapping(value = "/rest/users/view/{id}", method = RequestMethod.GET)
+    public DeferredResult<ModelAndView> view(@PathVariable final String id) {
+        GetRequest getRequest = new GetRequest(UserIndexer.USERS_INDEX, id);
+        CompletableFuture<GetResponse> call = asyncElasticsearch.execute(
+                (client, listener) -> client.getAsync(getRequest, RequestOptions.DEFAULT, listener));
+        return respond(call, "res",
+                response -> response.isExists() ? response.getSource().get("name") : "not found",
+                "Error reading user: ");
     }
 
     @RequestMapping(value = "/rest/users/update/{id}", method = RequestMethod.GET)
-    public String update(@PathVariable final String id, final Model model) throws IOException {
-        try (RestHighLevelClient client = ElasticsearchUtil.getRestHighLevelClient()) {
-            UpdateRequest updateRequest = new UpdateRequest("users", "_doc", id)
-                    .doc(XContentFactory.jsonBuilder()
-                            .startObject()
-                            .field("gender", "male")
-                            .endObject());
-
-            UpdateResponse updateResponse = client.update(updateRequest, RequestOptions.DEFAULT);
-            System.out.println(updateResponse.status());
-            model.addAttribute("res", updateResponse.status());
-        }
-
-        return "elasticeSearchRes";
+    public DeferredResult<ModelAndView> update(@PathVariable final String id) throws IOException {
+        UpdateRequest updateRequest = new UpdateRequest(UserIndexer.USERS_INDEX, id)
+                .doc(XContentFactory.jsonBuilder()
+                        .startObject()
+                        .field("gender", "male")
+                        .endObject());
+        CompletableFuture<UpdateResponse> call = asyncElasticsearch.execute(
+                (client, listener) -> client.updateAsync(updateRequest, RequestOptions.DEFAULT, listener));
+        return respond(call, "res", UpdateResponse::status, "Error updating user: ");
     }
 
     @RequestMapping(value = "/rest/users/delete/{id}", method = RequestMethod.GET)
-    public String delete(@PathVariable final String id, final Model model) throws IOException {
-        try (RestHighLevelClient client = ElasticsearchUtil.getRestHighLevelClient()) {
-            DeleteRequest deleteRequest = new DeleteRequest("users", "_doc", id);
-            DeleteResponse deleteResponse = client.delete(deleteRequest, RequestOptions.DEFAULT);
+    public DeferredResult<ModelAndView> delete(@PathVariable final String id) {
+        DeleteRequest deleteRequest = new DeleteRequest(UserIndexer.USERS_INDEX, id);
+        CompletableFuture<DeleteResponse> call = asyncElasticsearch.execute(
+                (client, listener) -> client.deleteAsync(deleteRequest, RequestOptions.DEFAULT, listener));
+        return respond(call, "res", response -> response.getResult().toString(), "Error deleting user: ");
+    }
 
-            System.out.println(deleteResponse.getResult().toString());
-            model.addAttribute("res", deleteResponse.getResult().toString());
-        }
+    /**
+     * Bridge an async Elasticsearch call to a deferred view holding one model attribute
+     */
+    private <T> DeferredResult<ModelAndView> respond(CompletableFuture<T> call, String attribute,
+                                                     Function<T, Object> onSuccess, String errorPrefix) {
+        DeferredResult<ModelAndView> result = new DeferredResult<>(timeoutMs,
+                () -> view(attribute, errorPrefix + "Elasticsearch did not answer in time"));
+        call.whenComplete((response, error) -> {
+            if (error == null) {
+                result.setResult(view(attribute, onSuccess.apply(response)));
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                result.setResult(view(attribute, errorPrefix + cause.getMessage()));
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        background = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "elasticsearch-admin");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        background.shutdown();
+        background.awaitTermination(5, TimeUnit.SECONDS);
+    }
 
-        return "elasticeSearchRes";
+    private static ModelAndView view(String attribute, Object value) {
+        ModelAndView modelAndView = new ModelAndView(VIEW);
+        modelAndView.addObject(attribute, value);
+        return modelAndView;
     }
 }
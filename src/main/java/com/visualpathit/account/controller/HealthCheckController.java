@@ -9,11 +9,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import javax.sql.DataSource;
-import java.sql.Connection;
-import java.sql.SQLException;
-import java.time.Instant;
+import com.visualpathit.account.service.DependencyMonitor;
+
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -30,7 +29,7 @@ public class HealthCheckController {
     private static final Logger logger = LoggerFactory.getLogger(HealthCheckController.class);
 
     @Autowired
-    private DataSource dataSource;
+    private DependencyMonitor dependencyMonitor;
 
     @Value("${app.name:facelink}")
     private String appName;
@@ -57,27 +56,28 @@ public class HealthCheckController {
 
     /**
      * Readiness probe - Check if application is ready to serve traffic
-     * Validates MySQL database connectivity
-     * Returns HTTP 200 if ready, HTTP 503 if not ready
+     * Reads the DependencyMonitor snapshot; only MySQL gates readiness, the other
+     * dependencies are reported so a search or broker outage does not take every pod out
+     * Returns HTTP 200 if ready, HTTP 503 if not ready (including before the first probe)
      *
-     * @return {"status": "UP/DOWN", "database": "UP/DOWN"}
+     * @return {"status": "UP/DOWN", "database": "UP/DOWN", "rabbitmq": ..., "memcached": ..., "elasticsearch": ...}
      */
     @GetMapping("/ready")
     public ResponseEntity<Map<String, String>> ready() {
-        Map<String, String> response = new HashMap<>();
-
-        // Check MySQL connectivity
-        boolean databaseUp = checkDatabaseConnection();
+        Map<String, String> response = new LinkedHashMap<>();
+        boolean databaseUp = dependencyMonitor.isUp(DependencyMonitor.MYSQL);
+        response.put("status", databaseUp ? "UP" : "DOWN");
+        response.put("database", databaseUp ? "UP" : "DOWN");
+        for (String dependency : new String[]{DependencyMonitor.RABBITMQ, DependencyMonitor.MEMCACHED,
+                DependencyMonitor.ELASTICSEARCH}) {
+            response.put(dependency, dependencyMonitor.isUp(dependency) ? "UP" : "DOWN");
+        }
 
         if (databaseUp) {
-            response.put("status", "UP");
-            response.put("database", "UP");
             return ResponseEntity.ok(response);
-        } else {
-            response.put("status", "DOWN");
-            response.put("database", "DOWN");
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
         }
+        logger.debug("Not ready: database {}", dependencyMonitor.get(DependencyMonitor.MYSQL).getDetail());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
     }
 
     /**
@@ -94,24 +94,4 @@ public class HealthCheckController {
         response.put("buildTime", buildTime);
         return ResponseEntity.ok(response);
     }
-
-    /**
-     * Check database connection with timeout
-     * Uses DataSource connection pool with 2 second timeout
-     *
-     * @return true if connection successful, false otherwise
-     */
-    private boolean checkDatabaseConnection() {
-        try (Connection connection = dataSource.getConnection()) {
-            // Set a short timeout (2 seconds) for the validation query
-            if (!connection.isValid(2)) {
-                logger.warn("Database connection validation failed");
-                return false;
-            }
-            return true;
-        } catch (SQLException e) {
-            logger.error("Database connection check failed: {}", e.getMessage());
-            return false;
-        }
-    }
 }
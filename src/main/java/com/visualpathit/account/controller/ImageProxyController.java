@@ -0,0 +1,83 @@
+package com.visualpathit.account.controller;
+
+import com.visualpathit.account.service.ImageProxyService;
+import com.visualpathit.account.service.PostService;
+import com.visualpathit.account.utils.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the image of a post through ImageProxyService.
+ *
+ * Pages reference /img-proxy/{postId} rather than the external URL; taking the
+ * post id rather than a URL means only images that were actually posted can be
+ * fetched through this node. Post ids are mapped to their URL through a small
+ * cache, so a served image costs no query.
+ */
+@Controller
+public class ImageProxyController implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageProxyController.class);
+
+    /** The image of a post never changes */
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(7, TimeUnit.DAYS).cachePrivate();
+
+    @Autowired
+    private ImageProxyService imageProxyService;
+
+    @Autowired
+    private PostService postService;
+
+    @Value("${imgproxy.urlCacheTtlMs:600000}")
+    private long urlCacheTtlMs = 600000;
+
+    private ExpiringCache<Long, String> imageUrls;
+
+    @GetMapping("/img-proxy/{postId}")
+    public ResponseEntity<Resource> postImage(@PathVariable Long postId) {
+        String url = imageUrls.get(postId);
+        if (url == null) {
+            url = postService.findImageUrl(postId);
+            if (url == null) {
+                return ResponseEntity.notFound().build();
+            }
+            imageUrls.put(postId, url);
+        }
+
+        try {
+            Path image = imageProxyService.getImage(url);
+            String name = image.getFileName().toString();
+            return ResponseEntity.ok()
+                    .cacheControl(CACHE_CONTROL)
+                    .eTag(name.substring(0, name.lastIndexOf('.')))
+                    .contentType(name.endsWith(".png") ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG)
+                    .body(new FileSystemResource(image));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Image of post {} refused: {}", postId, e.getMessage());
+            return ResponseEntity.notFound().build();
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        imageUrls = new ExpiringCache<>(urlCacheTtlMs, 10000);
+    }
+}
@@ -1,9 +1,8 @@
 package com.visualpathit.account.controller;
 
+import com.visualpathit.account.config.CurrentUser;
 import com.visualpathit.account.model.User;
 import com.visualpathit.account.service.PostLikeService;
-import com.visualpathit.account.service.SecurityService;
-import com.visualpathit.account.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,36 +23,24 @@ public class PostLikeController {
     @Autowired
     private PostLikeService postLikeService;
 
-    @Autowired
-    private UserService userService;
-
-    @Autowired
-    private SecurityService securityService;
-
     /**
      * Toggle like on a post (like if not liked, unlike if already liked)
      */
     @PostMapping("/post/{postId}/like")
     public String toggleLike(
             @PathVariable Long postId,
+            @CurrentUser User user,
             HttpServletRequest request,
             RedirectAttributes redirectAttributes
     ) {
         logger.info("Like toggle request for post: {}", postId);
 
         try {
-            // Get current user
-            String username = securityService.findLoggedInUsername();
-            if (username == null) {
-                logger.error("No logged-in user found when toggling like");
-                return "redirect:/login";
-            }
-
-            User user = userService.findByUsername(username);
             if (user == null) {
-                logger.error("User not found: {}", username);
+                logger.error("No logged-in user found when toggling like");
                 return "redirect:/login";
             }
+            String username = user.getUsername();
 
             // Toggle the like
             boolean liked = postLikeService.toggleLike(postId, user);
@@ -0,0 +1,91 @@
+package com.visualpathit.account.controller;
+
+import com.visualpathit.account.service.InvalidCursorException;
+import com.visualpathit.account.service.SearchResults;
+import com.visualpathit.account.service.SearchService;
+import com.visualpathit.account.service.SuggestService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full-text search over users and posts, and username autocomplete
+ */
+@RestController
+public class SearchController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchController.class);
+
+    /** Upper bound on suggestions per request */
+    private static final int MAX_SUGGESTIONS = 20;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private SuggestService suggestService;
+
+    /**
+     * Search users and/or posts
+     *
+     * @param q the text to search for
+     * @param type "users", "posts" or "all"
+     * @param scope "recent" (default) searches the last few months of posts, "all" every retained month
+     * @param after cursor from the previous page's nextCursor
+     * @param size page size (capped server-side)
+     */
+    @GetMapping("/rest/search")
+    public ResponseEntity<?> search(@RequestParam("q") String q,
+                                    @RequestParam(value = "type", defaultValue = SearchService.TYPE_ALL) String type,
+                                    @RequestParam(value = "scope", defaultValue = SearchService.SCOPE_RECENT) String scope,
+                                    @RequestParam(value = "after", required = false) String after,
+                                    @RequestParam(value = "size", defaultValue = "20") int size) {
+        if (q.trim().isEmpty()) {
+            return error(HttpStatus.BAD_REQUEST, "Query must not be empty");
+        }
+        if (!SearchService.TYPE_ALL.equals(type) && !SearchService.TYPE_USERS.equals(type)
+                && !SearchService.TYPE_POSTS.equals(type)) {
+            return error(HttpStatus.BAD_REQUEST, "Unknown search type: " + type);
+        }
+        if (!SearchService.SCOPE_RECENT.equals(scope) && !SearchService.SCOPE_ALL.equals(scope)) {
+            return error(HttpStatus.BAD_REQUEST, "Unknown search scope: " + scope);
+        }
+
+        try {
+            SearchResults results = searchService.search(q.trim(), type, scope, after, size);
+            return ResponseEntity.ok(results);
+        } catch (InvalidCursorException e) {
+            return error(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        } catch (Exception e) {
+            logger.error("Search failed for query '{}'", q, e);
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Search is temporarily unavailable");
+        }
+    }
+
+    /**
+     * Username autocomplete, meant to be called on every keystroke
+     *
+     * @param q the prefix typed so far
+     * @param limit maximum number of suggestions (capped server-side)
+     */
+    @GetMapping("/users/suggest")
+    public List<String> suggest(@RequestParam("q") String q,
+                                @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return suggestService.suggest(q, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    private static ResponseEntity<Map<String, String>> error(HttpStatus status, String message) {
+        Map<String, String> response = new HashMap<>();
+        response.put("error", message);
+        return ResponseEntity.status(status).body(response);
+    }
+}
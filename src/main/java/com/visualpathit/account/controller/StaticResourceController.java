@@ -1,84 +1,323 @@
 package com.visualpathit.account.controller;
 
+import com.visualpathit.account.event.ProfilePhotoChangedEvent;
+import com.visualpathit.account.model.User;
+import com.visualpathit.account.service.ProfilePhotoStore;
+import com.visualpathit.account.utils.DirectBufferCache;
+import com.visualpathit.account.utils.ExpiringCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Controller to serve uploaded static files (profile images, etc.)
+ *
+ * Avatars are the most requested URLs of the site, so the work per request is
+ * kept to a minimum: size, date and ETag of a file are cached for
+ * uploads.metadata.ttlMs, conditional requests are answered with 304 from
+ * that cache alone, and bodies are handed to Tomcat's sendfile when the
+ * connector supports it, or otherwise copied with FileChannel.transferTo.
+ * Single byte ranges are honoured; several ranges get the whole file.
+ *
+ * Small content-addressed files, which is every 40 and 96 px avatar, are kept
+ * in an off-heap LRU of uploads.hotCache.maxBytes together with their headers,
+ * so the avatars a timeline shows over and over are answered from memory
+ * without any filesystem call. As their content never changes, entries only
+ * leave when pushed out or when the user moves to another photo.
  */
 @Controller
-public class StaticResourceController {
+public class StaticResourceController implements InitializingBean {
 
     private static final Logger logger = LoggerFactory.getLogger(StaticResourceController.class);
-    private static final String UPLOAD_BASE_DIR = "/var/lib/facelink/uploads";
+
+    /** Request attributes of Tomcat's sendfile support, as used by its DefaultServlet */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /** Content-addressed photos never change under their name */
+    private static final String IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue();
+
+    /** Older photos may be replaced in place */
+    private static final String REVALIDATE = CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic().getHeaderValue();
+
+    @Autowired
+    private ProfilePhotoStore profilePhotoStore;
+
+    @Value("${uploads.metadata.ttlMs:60000}")
+    private long metadataTtlMs = 60000;
+
+    @Value("${uploads.metadata.maxEntries:10000}")
+    private int metadataMaxEntries = 10000;
+
+    @Value("${uploads.sendfileMinBytes:49152}")
+    private long sendfileMinBytes = 49152;
+
+    @Value("${uploads.hotCache.maxBytes:67108864}")
+    private long hotCacheMaxBytes = 64L * 1024 * 1024;
+
+    @Value("${uploads.hotCache.maxEntryBytes:65536}")
+    private int hotCacheMaxEntryBytes = 64 * 1024;
+
+    private ExpiringCache<String, FileInfo> metadata;
+    private DirectBufferCache<String, FileInfo> hot;
+
+    /**
+     * Serve profile images from /uploads/profiles/{shard}/{shard}/{filename}
+     */
+    @GetMapping("/uploads/profiles/{dir1:[0-9a-f]{2}}/{dir2:[0-9a-f]{2}}/{filename:.+}")
+    public void serveShardedProfileImage(@PathVariable String dir1, @PathVariable String dir2,
+                                         @PathVariable String filename,
+                                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String relative = dir1 + "/" + dir2 + "/" + filename;
+        serve(relative, () -> profilePhotoStore.getProfilesDir().resolve(relative), request, response);
+    }
 
     /**
-     * Serve profile images from /uploads/profiles/{filename}
+     * Serve profile images from /uploads/profiles/{filename}, the URLs of photos stored before sharding
      */
     @GetMapping("/uploads/profiles/{filename:.+}")
-    public ResponseEntity<Resource> serveProfileImage(@PathVariable String filename) {
-        logger.debug("Request to serve profile image: {}", filename);
+    public void serveProfileImage(@PathVariable String filename,
+                                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(filename, () -> profilePhotoStore.locate(filename), request, response);
+    }
 
-        try {
-            // Construct the file path
-            Path filePath = Paths.get(UPLOAD_BASE_DIR, "profiles", filename).normalize();
-            File file = filePath.toFile();
+    /**
+     * @param location only asked for when the file is not in the metadata cache
+     */
+    private void serve(String cacheKey, Supplier<Path> location, HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        DirectBufferCache.Entry<FileInfo> cached = hot.get(cacheKey);
+        FileInfo info = cached != null ? cached.getMetadata() : metadata.get(cacheKey);
+        if (info == null) {
+            Path filePath = location.get().normalize();
+            // Security check: ensure the resolved path is still under the upload directory
+            if (!filePath.startsWith(profilePhotoStore.getProfilesDir())) {
+                logger.warn("Security violation: attempt to access file outside upload directory: {}", cacheKey);
+                response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+                return;
+            }
+            info = FileInfo.read(filePath);
+            if (info == null) {
+                logger.debug("File not found: {}", filePath);
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            metadata.put(cacheKey, info);
+        }
 
-            logger.debug("Looking for file at: {}", filePath.toString());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, info.immutable ? IMMUTABLE : REVALIDATE);
+        // Sets ETag and Last-Modified, and the status when a precondition decides it (304, 412)
+        if (new ServletWebRequest(request, response).checkNotModified(info.etag, info.lastModified)) {
+            return;
+        }
+        response.setContentType(info.contentType);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
 
-            // Security check: ensure the resolved path is still under the upload directory
-            if (!filePath.startsWith(Paths.get(UPLOAD_BASE_DIR))) {
-                logger.warn("Security violation: attempt to access file outside upload directory: {}", filename);
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        long start = 0;
+        long end = info.length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, info)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(info.length);
+                    end = ranges.get(0).getRangeEnd(info.length);
+                    if (start >= info.length || start > end) {
+                        throw new IllegalArgumentException("Range starts past the end");
+                    }
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + info.length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + info.length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
             }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
 
-            // Check if file exists and is readable
-            if (!file.exists()) {
-                logger.warn("File not found: {}", filePath);
-                return ResponseEntity.notFound().build();
+        if (cached == null && info.immutable && hot.accepts(info.length)) {
+            cached = load(cacheKey, info);
+            if (cached == null) {
+                response.reset();
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+        }
+        if (cached != null) {
+            ByteBuffer body = cached.getContent();
+            body.limit((int) end + 1).position((int) start);
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            while (body.hasRemaining()) {
+                out.write(body);
             }
+            return;
+        }
 
-            if (!file.canRead()) {
-                logger.warn("File not readable: {}", filePath);
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        if (count >= sendfileMinBytes && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file itself once this method returns, straight from the page cache
+            request.setAttribute(SENDFILE_FILENAME, info.path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(info.path)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long written = channel.transferTo(position, end + 1 - position, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+            }
+        } catch (NoSuchFileException e) {
+            // Removed since it was cached
+            metadata.remove(cacheKey);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
             }
+        }
+    }
+
+    /**
+     * Read a small immutable file into the hot cache
+     *
+     * @return null if the file is gone
+     */
+    private DirectBufferCache.Entry<FileInfo> load(String cacheKey, FileInfo info) throws IOException {
+        try {
+            return hot.put(cacheKey, info, ByteBuffer.wrap(Files.readAllBytes(info.path)));
+        } catch (NoSuchFileException e) {
+            metadata.remove(cacheKey);
+            return null;
+        }
+    }
 
-            // Determine content type
-            String contentType = Files.probeContentType(filePath);
-            if (contentType == null) {
-                contentType = "application/octet-stream";
+    /**
+     * Drop the renditions of the photo a user left, so they make room for ones still shown
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfilePhotoChanged(ProfilePhotoChangedEvent event) {
+        String previous = event.getPreviousProfileImg();
+        if (previous == null || !previous.startsWith(ProfilePhotoStore.URL_PREFIX)) {
+            return;
+        }
+        String relative = previous.substring(ProfilePhotoStore.URL_PREFIX.length());
+        List<String> keys = new ArrayList<>();
+        if (relative.endsWith(User.AVATAR_SUFFIX)) {
+            String base = relative.substring(0, relative.length() - User.AVATAR_SUFFIX.length());
+            for (int size : User.AVATAR_SIZES) {
+                keys.add(base + "-" + size + ".jpg");
             }
+        } else {
+            keys.add(relative);
+        }
+        for (String key : keys) {
+            hot.remove(key);
+            metadata.remove(key);
+        }
+    }
+
+    public DirectBufferCache<String, ?> getHotCache() {
+        return hot;
+    }
 
-            logger.info("Serving file: {} (size: {} bytes, type: {})",
-                       filePath, file.length(), contentType);
+    /**
+     * A range is only served if the representation it refers to is still the current one
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, FileInfo info) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(info.etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == info.lastModified / 1000 * 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
 
-            // Create resource
-            Resource resource = new FileSystemResource(file);
+    @Override
+    public void afterPropertiesSet() {
+        metadata = new ExpiringCache<>(metadataTtlMs, metadataMaxEntries);
+        hot = new DirectBufferCache<>(hotCacheMaxBytes, hotCacheMaxEntryBytes);
+    }
+
+    /**
+     * What a response needs to know about a file, read with a single stat call
+     */
+    private static final class FileInfo {
 
-            // Return the file with appropriate headers
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + file.getName() + "\"")
-                    .body(resource);
+        private final Path path;
+        private final long length;
+        private final long lastModified;
+        private final String etag;
+        private final String contentType;
+        private final boolean immutable;
 
-        } catch (IOException e) {
-            logger.error("Error serving profile image: {}", filename, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        private FileInfo(Path path, BasicFileAttributes attributes) {
+            String name = path.getFileName().toString();
+            this.path = path;
+            this.length = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+            this.immutable = ProfilePhotoStore.isImmutable(name);
+            // A content-addressed name already identifies the bytes; other files are renamed into place whole
+            this.etag = "\"" + (immutable ? name.substring(0, name.lastIndexOf('.'))
+                    : Long.toHexString(lastModified) + "-" + Long.toHexString(length)) + "\"";
+            this.contentType = MediaTypeFactory.getMediaType(name)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        }
+
+        /**
+         * @return null if there is no regular file at path
+         */
+        static FileInfo read(Path path) throws IOException {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return attributes.isRegularFile() ? new FileInfo(path, attributes) : null;
+            } catch (NoSuchFileException e) {
+                return null;
+            }
         }
     }
 }
@@ -1,11 +1,11 @@
 package com.visualpathit.account.controller;
 
+import com.visualpathit.account.config.CurrentUser;
 import com.visualpathit.account.model.Post;
+import com.visualpathit.account.model.SessionUser;
 import com.visualpathit.account.model.User;
 import com.visualpathit.account.service.PostLikeService;
 import com.visualpathit.account.service.PostService;
-import com.visualpathit.account.service.SecurityService;
-import com.visualpathit.account.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,12 +32,6 @@ public class TimelineController {
     @Autowired
     private PostService postService;
 
-    @Autowired
-    private UserService userService;
-
-    @Autowired
-    private SecurityService securityService;
-
     @Autowired
     private PostLikeService postLikeService;
 
@@ -54,17 +48,11 @@ public class TimelineController {
      * Create a new post - redirect to welcome/post
      */
     @PostMapping("/timeline/post")
-    public String createPost(@RequestParam("content") String content,
+    public String createPost(@CurrentUser User currentUser,
+                            @RequestParam("content") String content,
                             @RequestParam(value = "imageUrl", required = false) String imageUrl) {
         logger.info("Redirecting POST /timeline/post to /welcome/post");
 
-        // Get current user
-        String username = securityService.findLoggedInUsername();
-        if (username == null) {
-            return "redirect:/login";
-        }
-
-        User currentUser = userService.findByUsername(username);
         if (currentUser == null) {
             return "redirect:/login";
         }
@@ -86,31 +74,24 @@ public class TimelineController {
      * Display posts by the current user only
      */
     @GetMapping("/my-posts")
-    public String myPosts(Model model,
+    public String myPosts(Model model, @CurrentUser SessionUser currentUser,
                          @RequestParam(value = "page", defaultValue = "0") int page) {
         logger.info("Accessing my-posts, page: {}", page);
 
-        // Get current user
-        String username = securityService.findLoggedInUsername();
-        if (username == null) {
-            logger.error("No logged-in user found when accessing my-posts");
-            return "redirect:/login";
-        }
-
-        User currentUser = userService.findByUsername(username);
         if (currentUser == null) {
-            logger.error("User not found: {}", username);
+            logger.error("No logged-in user found when accessing my-posts");
             return "redirect:/login";
         }
+        String username = currentUser.getUsername();
 
         model.addAttribute("currentUser", currentUser);
 
         // Get posts by current user with pagination
+        final User finalCurrentUser = currentUser.toUser();
         Pageable pageable = PageRequest.of(page, PAGE_SIZE);
-        Page<Post> postsPage = postService.findByAuthor(currentUser, pageable);
+        Page<Post> postsPage = postService.findByAuthor(finalCurrentUser, pageable);
 
         // Enrich each post with like information for the current user
-        final User finalCurrentUser = currentUser;
         postsPage.getContent().forEach(post -> {
             boolean isLiked = postLikeService.hasUserLiked(post, finalCurrentUser);
             post.setLikedByCurrentUser(isLiked);
@@ -1,10 +1,13 @@
 package com.visualpathit.account.controller;
 
+import com.visualpathit.account.config.CurrentUser;
 import com.visualpathit.account.model.Post;
+import com.visualpathit.account.model.SessionUser;
 import com.visualpathit.account.model.User;
 import com.visualpathit.account.service.PostLikeService;
 import com.visualpathit.account.service.PostService;
 import com.visualpathit.account.service.ProducerService;
+import com.visualpathit.account.service.ProfilePhotoProcessor;
 import com.visualpathit.account.service.SecurityService;
 import com.visualpathit.account.service.UserService;
 import com.visualpathit.account.utils.MemcachedUtils;
@@ -26,18 +29,10 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
 import javax.validation.Valid;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.UUID;
-import jakarta.servlet.http.HttpSession;
-import net.coobird.thumbnailator.Thumbnails;
 
 @Controller
 public class UserController {
@@ -66,6 +61,9 @@ public class UserController {
     @Autowired
     private ServletContext servletContext;
 
+    @Autowired
+    private ProfilePhotoProcessor profilePhotoProcessor;
+
     @GetMapping("/")
     public String home() {
         // Redirect authenticated users to welcome page
@@ -126,32 +124,25 @@ public class UserController {
     }
 
     @GetMapping("/welcome")
-    public String welcome(Model model,
+    public String welcome(Model model, @CurrentUser SessionUser currentUser,
                          @RequestParam(value = "page", defaultValue = "0") int page) {
-        // Get currently logged-in user
-        String username = securityService.findLoggedInUsername();
+        String username = currentUser != null ? currentUser.getUsername() : null;
         logger.info("Welcome page accessed by user: {}", username != null ? username : "anonymous");
 
-        User currentUser = null;
         boolean isAdmin = false;
 
-        if (username != null) {
-            currentUser = userService.findByUsername(username);
-            if (currentUser != null) {
-                model.addAttribute("currentUser", currentUser);
-
-                // Check if user has ROLE_ADMIN using Spring Security (avoids lazy loading issues)
-                Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-                if (auth != null && auth.getAuthorities() != null) {
-                    isAdmin = auth.getAuthorities().stream()
-                        .anyMatch(grantedAuthority -> "ROLE_ADMIN".equals(grantedAuthority.getAuthority()));
-                }
+        if (currentUser != null) {
+            model.addAttribute("currentUser", currentUser);
 
-                model.addAttribute("isAdmin", isAdmin);
-                logger.info("User profile loaded successfully for: {} (isAdmin: {})", username, isAdmin);
-            } else {
-                logger.error("User not found in database: {}", username);
+            // Check if user has ROLE_ADMIN using Spring Security (avoids lazy loading issues)
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null && auth.getAuthorities() != null) {
+                isAdmin = auth.getAuthorities().stream()
+                    .anyMatch(grantedAuthority -> "ROLE_ADMIN".equals(grantedAuthority.getAuthority()));
             }
+
+            model.addAttribute("isAdmin", isAdmin);
+            logger.info("User profile loaded successfully for: {} (isAdmin: {})", username, isAdmin);
         } else {
             logger.warn("Welcome page accessed without authentication");
         }
@@ -162,7 +153,7 @@ public class UserController {
 
         // Enrich each post with like information for the current user
         if (currentUser != null) {
-            final User finalCurrentUser = currentUser;
+            final User finalCurrentUser = currentUser.toUser();
             postsPage.getContent().forEach(post -> {
                 boolean isLiked = postLikeService.hasUserLiked(post, finalCurrentUser);
                 post.setLikedByCurrentUser(isLiked);
@@ -183,20 +174,13 @@ public class UserController {
     }
 
     @PostMapping("/welcome/post")
-    public String createPostFromWelcome(@RequestParam("content") String content,
+    public String createPostFromWelcome(@CurrentUser User currentUser,
+                                       @RequestParam("content") String content,
                                        @RequestParam(value = "imageUrl", required = false) String imageUrl) {
         logger.info("Creating new post from welcome page");
 
-        // Get current user
-        String username = securityService.findLoggedInUsername();
-        if (username == null) {
-            logger.error("No logged-in user found when creating post");
-            return "redirect:/login";
-        }
-
-        User currentUser = userService.findByUsername(username);
         if (currentUser == null) {
-            logger.error("User not found: {}", username);
+            logger.error("No logged-in user found when creating post");
             return "redirect:/login";
         }
 
@@ -214,7 +198,7 @@ public class UserController {
         // Create post
         postService.createPost(content, imageUrl, currentUser);
 
-        logger.info("Post created successfully by user: {}", username);
+        logger.info("Post created successfully by user: {}", currentUser.getUsername());
         return "redirect:/welcome";
     }
 
@@ -287,27 +271,17 @@ public class UserController {
     }
 
     @PostMapping("/profile/upload-photo")
-    public String uploadPhoto(@RequestParam("photo") MultipartFile file, HttpSession session) {
+    public String uploadPhoto(@CurrentUser SessionUser user, @RequestParam("photo") MultipartFile file) {
         logger.debug("========== UPLOAD PHOTO DEBUG START ==========");
 
-        // Get current logged-in user
-        String username = securityService.findLoggedInUsername();
-        logger.debug("Logged in username: {}", username);
-
-        if (username == null) {
+        if (user == null) {
             logger.error("No logged-in user found when uploading photo");
             logger.debug("========== UPLOAD PHOTO DEBUG END (NO USER) ==========");
             return "redirect:/login";
         }
 
-        User user = userService.findByUsername(username);
-        logger.debug("User found in database: {}", user != null);
-
-        if (user == null) {
-            logger.error("User not found: {}", username);
-            logger.debug("========== UPLOAD PHOTO DEBUG END (USER NOT FOUND) ==========");
-            return "redirect:/login";
-        }
+        String username = user.getUsername();
+        logger.debug("Logged in username: {}", username);
 
         // Validation: Empty file check
         logger.debug("File original name: {}", file.getOriginalFilename());
@@ -337,139 +311,18 @@ public class UserController {
             return "redirect:/welcome?error=fileTooLarge";
         }
 
-        logger.debug("All validations passed, proceeding with image processing");
+        logger.debug("All validations passed, queueing photo for processing");
 
+        // Decoding, cropping and encoding happen on the photo workers; the new photo
+        // replaces the old one once it is ready
         try {
-            // Read the original image
-            logger.debug("Reading original image from multipart file");
-            BufferedImage originalImage = ImageIO.read(file.getInputStream());
-
-            if (originalImage == null) {
-                logger.error("Failed to read image file - ImageIO.read returned null");
-                logger.debug("========== UPLOAD PHOTO DEBUG END (READ FAILED) ==========");
-                return "redirect:/welcome?error=uploadFailed";
-            }
-
-            // Calculate dimensions for centered square crop
-            int width = originalImage.getWidth();
-            int height = originalImage.getHeight();
-            int size = Math.min(width, height);
-            logger.debug("Original image dimensions: {}x{}, crop size: {}", width, height, size);
-
-            int x = (width - size) / 2;
-            int y = (height - size) / 2;
-            logger.debug("Crop position: x={}, y={}", x, y);
-
-            // Crop to square and resize to 300x300
-            logger.debug("Starting crop and resize operation");
-
-            // Generate unique filename (always save as JPG)
-            String filename = UUID.randomUUID().toString() + ".jpg";
-            logger.debug("Generated filename: {}", filename);
-
-            // Use dedicated external volume for uploads (persistent across container restarts)
-            // This path is mounted as a Docker volume in docker-compose.yml
-            String uploadDirectory = "/var/lib/facelink/uploads/profiles";
-            Path uploadPath = Paths.get(uploadDirectory);
-            logger.debug("Upload directory path: {}", uploadPath);
-            logger.debug("Upload directory exists: {}", Files.exists(uploadPath));
-
-            // Create directory if it doesn't exist
-            if (!Files.exists(uploadPath)) {
-                logger.debug("Creating upload directory");
-                Files.createDirectories(uploadPath);
-                logger.info("Created upload directory: {}", uploadPath);
-            }
-
-            // Check directory permissions
-            logger.debug("Directory readable: {}", Files.isReadable(uploadPath));
-            logger.debug("Directory writable: {}", Files.isWritable(uploadPath));
-            logger.debug("Directory executable: {}", Files.isExecutable(uploadPath));
-
-            // Save the cropped and resized image directly to file
-            Path filePath = uploadPath.resolve(filename);
-            logger.debug("Full file path: {}", filePath);
-            logger.debug("Saving image to disk using Thumbnails.toFile()");
-
-            // Use Thumbnails to write directly to file (more reliable than ImageIO.write)
-            Thumbnails.of(originalImage)
-                .sourceRegion(x, y, size, size)  // Centered square crop
-                .size(300, 300)                   // Resize to 300x300
-                .outputFormat("jpg")              // Force JPG format
-                .outputQuality(0.9)               // High quality (0.0 to 1.0)
-                .toFile(filePath.toFile());
-
-            // Set file permissions to 644 (rw-r--r--) so Tomcat can read it
-            // This is necessary because Thumbnails.toFile() creates files with restrictive permissions
-            Files.setPosixFilePermissions(filePath,
-                java.nio.file.attribute.PosixFilePermissions.fromString("rw-r--r--"));
-            logger.debug("File permissions set to rw-r--r-- (644)");
-
-            logger.info("Image saved successfully to: {}", filePath);
-
-            // Immediate verification after write
-            boolean fileExistsImmediately = Files.exists(filePath);
-            logger.debug("File exists IMMEDIATELY after write: {}", fileExistsImmediately);
-
-            if (fileExistsImmediately) {
-                long fileSize = Files.size(filePath);
-                logger.info("File IMMEDIATELY verified to exist, size: {} bytes", fileSize);
-
-                // Check file permissions
-                logger.debug("File readable: {}", Files.isReadable(filePath));
-                logger.debug("File writable: {}", Files.isWritable(filePath));
-
-                // List directory contents to confirm
-                logger.debug("Directory contents:");
-                try (var stream = Files.list(uploadPath)) {
-                    stream.forEach(path -> logger.debug("  - {}", path.getFileName()));
-                }
-            } else {
-                logger.error("File was NOT saved correctly at: {}", filePath);
-
-                // Debug: List directory contents
-                logger.debug("Directory contents after failed write:");
-                try (var stream = Files.list(uploadPath)) {
-                    stream.forEach(path -> logger.debug("  - {}", path.getFileName()));
-                } catch (IOException listEx) {
-                    logger.error("Cannot list directory: {}", listEx.getMessage());
-                }
+            if (!profilePhotoProcessor.submit(user.getId(), file)) {
+                logger.debug("========== UPLOAD PHOTO DEBUG END (QUEUE FULL) ==========");
+                return "redirect:/welcome?error=uploadBusy";
             }
-
-            // IMPORTANT: Store relative URL starting with /
-            // This URL will be served by Spring's ResourceHandler configuration
-            String photoUrl = "/uploads/profiles/" + filename;
-            logger.debug("Photo URL for database: {}", photoUrl);
-            logger.debug("Current user profileImg before update: {}", user.getProfileImg());
-
-            user.setProfileImg(photoUrl);
-            user.setProfileImgPath(filePath.toString());
-            logger.debug("User object updated with new photo info");
-
-            // Use update() instead of save() to avoid re-encoding password
-            logger.debug("Calling userService.update() to save to database");
-            userService.update(user);
-            logger.info("Photo URL saved to database: {}", photoUrl);
-            logger.info("File path saved to database: {}", filePath);
-
-            // Verify file again after database update
-            boolean fileExistsAfterDB = Files.exists(filePath);
-            logger.debug("File exists AFTER database update: {}", fileExistsAfterDB);
-
-            if (fileExistsAfterDB) {
-                long fileSize = Files.size(filePath);
-                logger.info("File verified to exist at: {}, size: {} bytes", filePath, fileSize);
-            } else {
-                logger.error("File was NOT saved correctly at: {}", filePath);
-            }
-
-            // IMPORTANT: Update session to refresh navbar photo
-            session.setAttribute("currentUser", user);
-            logger.debug("Session updated with new profile photo");
-
-            logger.info("Profile photo updated successfully for user: {}", username);
-            logger.debug("========== UPLOAD PHOTO DEBUG END (SUCCESS) ==========");
-            return "redirect:/welcome?success=photoUploaded";
+            logger.info("Profile photo queued for user: {}", username);
+            logger.debug("========== UPLOAD PHOTO DEBUG END (QUEUED) ==========");
+            return "redirect:/welcome?success=photoProcessing";
 
         } catch (IOException e) {
             logger.error("Failed to upload photo for user: {}", username, e);
@@ -0,0 +1,96 @@
+package com.visualpathit.account.event;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Envelope for events sent to other services over RabbitMQ.
+ *
+ * The body carries the ids involved and a small map of type-specific data; the
+ * type is repeated in the routing key and headers so consumers can filter and
+ * dispatch without parsing it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DomainEvent {
+
+    private String id;
+    private EventType type;
+    private long occurredAt;
+    private Long subjectId;
+    private Long actorId;
+    private Map<String, Object> data = new LinkedHashMap<>();
+
+    public DomainEvent() {
+    }
+
+    /**
+     * @param type what happened
+     * @param subjectId id of the post or user the event is about
+     * @param actorId id of the user who caused it, if different from the subject
+     */
+    public DomainEvent(EventType type, Long subjectId, Long actorId) {
+        this.id = UUID.randomUUID().toString();
+        this.type = type;
+        this.occurredAt = System.currentTimeMillis();
+        this.subjectId = subjectId;
+        this.actorId = actorId;
+    }
+
+    public DomainEvent with(String key, Object value) {
+        if (value != null) {
+            data.put(key, value);
+        }
+        return this;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public EventType getType() {
+        return type;
+    }
+
+    public void setType(EventType type) {
+        this.type = type;
+    }
+
+    public long getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(long occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getSubjectId() {
+        return subjectId;
+    }
+
+    public void setSubjectId(Long subjectId) {
+        this.subjectId = subjectId;
+    }
+
+    public Long getActorId() {
+        return actorId;
+    }
+
+    public void setActorId(Long actorId) {
+        this.actorId = actorId;
+    }
+
+    public Map<String, Object> getData() {
+        return data;
+    }
+
+    public void setData(Map<String, Object> data) {
+        this.data = data;
+    }
+}
@@ -0,0 +1,98 @@
+package com.visualpathit.account.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.MessageDeliveryMode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * Converts DomainEvents to and from AMQP messages.
+ *
+ * Bodies are compact UTF-8 JSON. The schema version and event type go in
+ * headers; a consumer refuses versions newer than it understands and ignores
+ * unknown fields within a version it does understand.
+ */
+public final class DomainEventCodec {
+
+    /** Topic exchange all domain events are published to */
+    public static final String EXCHANGE = "facelink.events";
+
+    /** Version of the envelope written by this code */
+    public static final int SCHEMA_VERSION = 1;
+
+    public static final String CONTENT_TYPE = "application/vnd.facelink.event+json";
+    public static final String HEADER_SCHEMA_VERSION = "x-schema-version";
+    public static final String HEADER_EVENT_TYPE = "x-event-type";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private DomainEventCodec() {
+    }
+
+    public static Message encode(DomainEvent event) {
+        return toMessage(toBytes(event), event.getId(), event.getType().getRoutingKey(),
+                SCHEMA_VERSION, event.getOccurredAt());
+    }
+
+    /**
+     * Serialise just the body, e.g. for storing in the outbox
+     */
+    public static byte[] toBytes(DomainEvent event) {
+        try {
+            return MAPPER.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot encode event " + event.getId(), e);
+        }
+    }
+
+    /**
+     * Wrap a previously serialised body with the headers consumers expect
+     */
+    public static Message toMessage(byte[] body, String eventId, String routingKey, int schemaVersion, long occurredAt) {
+        return MessageBuilder.withBody(body)
+                .setContentType(CONTENT_TYPE)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .setMessageId(eventId)
+                .setTimestamp(new Date(occurredAt))
+                .setType(routingKey)
+                .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+                .setHeader(HEADER_SCHEMA_VERSION, schemaVersion)
+                .setHeader(HEADER_EVENT_TYPE, routingKey)
+                .build();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the message is not a domain event this code can read
+     */
+    public static DomainEvent decode(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        if (!CONTENT_TYPE.equals(properties.getContentType())) {
+            throw new IllegalArgumentException("Not a domain event: content type " + properties.getContentType());
+        }
+        Object version = properties.getHeader(HEADER_SCHEMA_VERSION);
+        if (!(version instanceof Number) || ((Number) version).intValue() > SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported event schema version " + version);
+        }
+        try {
+            return MAPPER.readValue(message.getBody(), DomainEvent.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed event body", e);
+        }
+    }
+
+    /**
+     * Read the event type from headers alone, without parsing the body
+     */
+    public static EventType typeOf(Message message) {
+        Object type = message.getMessageProperties().getHeader(HEADER_EVENT_TYPE);
+        return EventType.fromRoutingKey(String.valueOf(type));
+    }
+}
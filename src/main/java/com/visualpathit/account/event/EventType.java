@@ -0,0 +1,39 @@
+package com.visualpathit.account.event;
+
+/**
+ * Kinds of domain event published on the facelink.events topic exchange.
+ *
+ * The routing key is "&lt;aggregate&gt;.&lt;action&gt;", so consumers can bind to
+ * exactly what they need, e.g. "post.*" or "user.registered".
+ */
+public enum EventType {
+
+    POST_CREATED("post.created"),
+    POST_LIKED("post.liked"),
+    POST_UNLIKED("post.unliked"),
+    USER_REGISTERED("user.registered"),
+    USER_UPDATED("user.updated"),
+    PROFILE_PHOTO_CHANGED("user.photo_changed");
+
+    private final String routingKey;
+
+    EventType(String routingKey) {
+        this.routingKey = routingKey;
+    }
+
+    public String getRoutingKey() {
+        return routingKey;
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown routing key
+     */
+    public static EventType fromRoutingKey(String routingKey) {
+        for (EventType type : values()) {
+            if (type.routingKey.equals(routingKey)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown event routing key: " + routingKey);
+    }
+}
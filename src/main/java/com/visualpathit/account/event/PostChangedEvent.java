@@ -0,0 +1,20 @@
+package com.visualpathit.account.event;
+
+import com.visualpathit.account.model.Post;
+
+/**
+ * Published in-process whenever a post is created.
+ * Listeners receive it after the surrounding transaction commits.
+ */
+public class PostChangedEvent {
+
+    private final Post post;
+
+    public PostChangedEvent(Post post) {
+        this.post = post;
+    }
+
+    public Post getPost() {
+        return post;
+    }
+}
@@ -0,0 +1,35 @@
+package com.visualpathit.account.event;
+
+import com.visualpathit.account.model.Post;
+import com.visualpathit.account.model.User;
+
+/**
+ * Published in-process when a user likes or unlikes a post.
+ */
+public class PostLikedEvent {
+
+    private final Post post;
+    private final User user;
+    private final boolean liked;
+
+    public PostLikedEvent(Post post, User user, boolean liked) {
+        this.post = post;
+        this.user = user;
+        this.liked = liked;
+    }
+
+    public Post getPost() {
+        return post;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * @return true for a like, false for an unlike
+     */
+    public boolean isLiked() {
+        return liked;
+    }
+}
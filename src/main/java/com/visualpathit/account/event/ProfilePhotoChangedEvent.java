@@ -0,0 +1,28 @@
+package com.visualpathit.account.event;
+
+import com.visualpathit.account.model.User;
+
+/**
+ * Published in-process when a user's profile photo is replaced.
+ */
+public class ProfilePhotoChangedEvent {
+
+    private final User user;
+    private final String previousProfileImg;
+
+    public ProfilePhotoChangedEvent(User user, String previousProfileImg) {
+        this.user = user;
+        this.previousProfileImg = previousProfileImg;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * @return URL of the photo the user had before, or null if none
+     */
+    public String getPreviousProfileImg() {
+        return previousProfileImg;
+    }
+}
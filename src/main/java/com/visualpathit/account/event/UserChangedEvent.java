@@ -0,0 +1,29 @@
+package com.visualpathit.account.event;
+
+import com.visualpathit.account.model.User;
+
+/**
+ * Published in-process whenever a user is created or their profile is updated.
+ * Listeners receive it after the surrounding transaction commits.
+ */
+public class UserChangedEvent {
+
+    private final User user;
+    private final boolean created;
+
+    public UserChangedEvent(User user, boolean created) {
+        this.user = user;
+        this.created = created;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * @return true for a new registration, false for a profile update
+     */
+    public boolean isCreated() {
+        return created;
+    }
+}
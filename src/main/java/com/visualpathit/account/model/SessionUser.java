@@ -0,0 +1,81 @@
+package com.visualpathit.account.model;
+
+import java.io.Serializable;
+
+/**
+ * The lightweight fields of the logged-in user, kept in the HTTP session so a
+ * request does not have to load the user again. Exposes the same properties the
+ * views read from User (username, userEmail, profileImg, avatarUrl...).
+ */
+public class SessionUser implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String username;
+    private final String userEmail;
+    private final String profileImg;
+    private final String permanentAddress;
+    private final String skills;
+    /** When the fields were read from the database, in epoch milliseconds */
+    private final long loadedAt;
+
+    public SessionUser(User user, long loadedAt) {
+        this.id = user.getId();
+        this.username = user.getUsername();
+        this.userEmail = user.getUserEmail();
+        this.profileImg = user.getProfileImg();
+        this.permanentAddress = user.getPermanentAddress();
+        this.skills = user.getSkills();
+        this.loadedAt = loadedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public String getProfileImg() {
+        return profileImg;
+    }
+
+    public String getPermanentAddress() {
+        return permanentAddress;
+    }
+
+    public String getSkills() {
+        return skills;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    /** @see User#avatarUrl(int) */
+    public String avatarUrl(int size) {
+        return User.avatarUrl(profileImg, size);
+    }
+
+    /**
+     * A detached User carrying only the fields above, to pass where a User is
+     * referenced (post author, liker, query parameter). It must never be saved:
+     * every other column would be overwritten with null.
+     */
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setUserEmail(userEmail);
+        user.setProfileImg(profileImg);
+        user.setPermanentAddress(permanentAddress);
+        user.setSkills(skills);
+        return user;
+    }
+}
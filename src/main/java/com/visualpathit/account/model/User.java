@@ -9,6 +9,10 @@ import java.util.Set;
 @Entity
 @Table(name = "user")
 public class User implements Serializable {
+	/** Avatar renditions stored for each uploaded photo, in pixels, smallest first !*/
+	public static final int[] AVATAR_SIZES = {40, 96, 300};
+	/** profileImg of a photo stored with renditions ends with this; older photos have one size only !*/
+	public static final String AVATAR_SUFFIX = "-300.jpg";
 	/** the id field !*/
     private Long id;
     /** the user name field !*/
@@ -114,6 +118,24 @@ public class User implements Serializable {
 	public void setProfileImg(String profileImg) {
 		this.profileImg = profileImg;
 	}
+	/** URL of the smallest avatar rendition at least size pixels wide (or profileImg for older photos) !*/
+	public String avatarUrl(final int size) {
+		return avatarUrl(profileImg, size);
+	}
+	/** URL of the smallest rendition of the given profileImg at least size pixels wide !*/
+	public static String avatarUrl(final String profileImg, final int size) {
+		if (profileImg == null || !profileImg.endsWith(AVATAR_SUFFIX)) {
+			return profileImg;
+		}
+		int rendition = AVATAR_SIZES[AVATAR_SIZES.length - 1];
+		for (int candidate : AVATAR_SIZES) {
+			if (candidate >= size) {
+				rendition = candidate;
+				break;
+			}
+		}
+		return profileImg.substring(0, profileImg.length() - AVATAR_SUFFIX.length()) + "-" + rendition + ".jpg";
+	}
 	public String getProfileImgPath() {
 		return profileImgPath;
 	}
@@ -0,0 +1,43 @@
+package com.visualpathit.account.repository;
+
+import com.visualpathit.account.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the event outbox
+ */
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Oldest pending events, locked so that only one relay claims them at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from OutboxEvent e order by e.id asc")
+    List<OutboxEvent> findOldestForUpdate(Pageable pageable);
+
+    /**
+     * Mark events as being published by the relay pass holding token
+     */
+    @Modifying
+    @Query("update OutboxEvent e set e.claimToken = :token, e.claimedUntil = :until where e.id in :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("token") String token, @Param("until") LocalDateTime until);
+
+    /**
+     * Hand events back for the next pass, unless another relay has taken them over since
+     */
+    @Modifying
+    @Query("update OutboxEvent e set e.claimToken = null, e.claimedUntil = null where e.id in :ids and e.claimToken = :token")
+    int release(@Param("ids") Collection<Long> ids, @Param("token") String token);
+}
@@ -5,8 +5,11 @@ import com.visualpathit.account.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -20,6 +23,12 @@ public interface PostRepository extends JpaRepository<Post, Long> {
      */
     List<Post> findAllByOrderByCreatedAtDesc();
 
+    /**
+     * Image URL of a post, without loading the post and its author
+     */
+    @Query("select p.imageUrl from Post p where p.id = :id")
+    String findImageUrlById(@Param("id") Long id);
+
     /**
      * Find all posts ordered by creation date with pagination
      */
@@ -35,6 +44,11 @@ public interface PostRepository extends JpaRepository<Post, Long> {
      */
     Page<Post> findByAuthorOrderByCreatedAtDesc(User author, Pageable pageable);
 
+    /**
+     * Find posts created after the given time
+     */
+    List<Post> findByCreatedAtAfter(LocalDateTime since);
+
     /**
      * Count posts by a specific author
      */
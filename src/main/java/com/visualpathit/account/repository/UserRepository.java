@@ -2,7 +2,11 @@ package com.visualpathit.account.repository;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.visualpathit.account.model.User;
 
@@ -10,5 +14,37 @@ public interface UserRepository extends JpaRepository<User, Long> {
     User findByUsername(String username);
     User findById(long id);
     /*public void updateUser(User user)*/;
-    
+
+    @Query("select u.username from User u")
+    List<String> findAllUsernames();
+
+    @Query("select min(u.id) from User u")
+    Long findMinId();
+
+    @Query("select max(u.id) from User u")
+    Long findMaxId();
+
+    @Query("select u.profileImg from User u where u.id = :id")
+    String findProfileImgById(@Param("id") Long id);
+
+    /** Point a user at a new profile photo without rewriting the rest of the row */
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.profileImg = :profileImg, u.profileImgPath = :profileImgPath where u.id = :id")
+    int updateProfileImg(@Param("id") Long id, @Param("profileImg") String profileImg,
+                         @Param("profileImgPath") String profileImgPath);
+
+    /** Reference count of a stored profile photo */
+    long countByProfileImgPath(String profileImgPath);
+
+    /** Follow a stored profile photo that moved on disk */
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.profileImg = :profileImg, u.profileImgPath = :newPath where u.profileImgPath = :oldPath")
+    int relocateProfileImg(@Param("oldPath") String oldPath, @Param("newPath") String newPath,
+                           @Param("profileImg") String profileImg);
+
+    @Query("select distinct u.profileImgPath from User u where u.profileImgPath is not null")
+    List<String> findProfileImgPaths();
+
+    /** Keyset page of users with after < id <= upTo, in id order */
+    List<User> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long after, Long upTo, Pageable pageable);
 }
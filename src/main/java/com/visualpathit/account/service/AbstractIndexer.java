@@ -0,0 +1,208 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.utils.ElasticsearchUtil;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base for background indexers that push partial documents to Elasticsearch.
+ *
+ * Documents are parked per entity id, so a burst of changes to the same entity
+ * collapses into a single update. A background thread flushes the pending
+ * documents as bulk upserts and re-queues anything that failed transiently
+ * (rejections and server errors); other failures are logged and dropped.
+ * Writes into a write-blocked index are logged and counted on their own, since
+ * they are expected for read-only indices rather than a sign of a bad document.
+ */
+public abstract class AbstractIndexer implements InitializingBean, DisposableBean {
+
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ConcurrentHashMap<Long, Map<String, Object>> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong blocked = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    @Value("${search.indexer.flushIntervalMs:500}")
+    private long flushIntervalMs = 500;
+
+    @Value("${search.indexer.batchSize:500}")
+    private int batchSize = 500;
+
+    /**
+     * Name of the index (or write alias) a document should be sent to
+     */
+    protected abstract String indexFor(Long id, Map<String, Object> document);
+
+    /**
+     * Queue a partial document, merging it over any update still waiting for the same id
+     */
+    public void enqueue(Long id, Map<String, Object> document) {
+        pending.merge(id, document, (older, newer) -> {
+            Map<String, Object> merged = new HashMap<>(older);
+            merged.putAll(newer);
+            return merged;
+        });
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Updates dropped because their index was write-blocked
+     */
+    public long getBlockedCount() {
+        return blocked.get();
+    }
+
+    /**
+     * Send pending updates to Elasticsearch in bulk batches
+     */
+    public void flush() {
+        while (!pending.isEmpty()) {
+            Map<Long, Map<String, Object>> batch = drain();
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (!send(batch)) {
+                return;
+            }
+        }
+    }
+
+    private Map<Long, Map<String, Object>> drain() {
+        Map<Long, Map<String, Object>> batch = new LinkedHashMap<>();
+        for (Long id : pending.keySet()) {
+            if (batch.size() >= batchSize) {
+                break;
+            }
+            Map<String, Object> document = pending.remove(id);
+            if (document != null) {
+                batch.put(id, document);
+            }
+        }
+        return batch;
+    }
+
+    private boolean send(Map<Long, Map<String, Object>> batch) {
+        RestHighLevelClient client = ElasticsearchUtil.getRestHighLevelClient();
+        if (client == null) {
+            requeue(batch.keySet(), batch);
+            return false;
+        }
+
+        BulkRequest bulkRequest = new BulkRequest();
+        batch.forEach((id, document) -> bulkRequest.add(
+                new UpdateRequest(indexFor(id, document), String.valueOf(id))
+                        .doc(document)
+                        .docAsUpsert(true)));
+
+        try {
+            BulkResponse response = client.bulk(bulkRequest, RequestOptions.DEFAULT);
+            if (response.hasFailures()) {
+                List<Long> retryable = new ArrayList<>();
+                int failed = 0;
+                for (BulkItemResponse item : response.getItems()) {
+                    if (item.isFailed()) {
+                        failed++;
+                        if (isRetryable(item.status())) {
+                            retryable.add(Long.valueOf(item.getId()));
+                        } else if (isWriteBlocked(item)) {
+                            blocked.incrementAndGet();
+                            logger.warn("Dropped update of {} in write-blocked index {}", item.getId(), item.getIndex());
+                        }
+                    }
+                }
+                logger.warn("{} of {} index updates failed ({} will be retried): {}",
+                        failed, batch.size(), retryable.size(), response.buildFailureMessage());
+                requeue(retryable, batch);
+                return retryable.isEmpty();
+            }
+            logger.debug("Indexed {} updates in {}", batch.size(), response.getTook());
+            return true;
+        } catch (Exception e) {
+            logger.warn("Index flush failed, will retry: {}", e.getMessage());
+            requeue(batch.keySet(), batch);
+            return false;
+        }
+    }
+
+    /**
+     * Back-pressure and server-side errors are worth retrying; mapping errors or
+     * writes into a write-blocked index will never succeed
+     */
+    private static boolean isRetryable(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS || status.getStatus() >= 500;
+    }
+
+    /**
+     * A cluster_block_exception (403) from an index with index.blocks.write or read_only set
+     */
+    private static boolean isWriteBlocked(BulkItemResponse item) {
+        return item.status() == RestStatus.FORBIDDEN
+                && item.getFailureMessage() != null
+                && item.getFailureMessage().contains("cluster_block_exception");
+    }
+
+    /**
+     * Put failed documents back without overwriting anything that arrived while they were in flight
+     */
+    private void requeue(Iterable<Long> ids, Map<Long, Map<String, Object>> batch) {
+        for (Long id : ids) {
+            pending.merge(id, batch.get(id), (newer, failed) -> {
+                Map<String, Object> merged = new HashMap<>(failed);
+                merged.putAll(newer);
+                return merged;
+            });
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        String threadName = getClass().getSimpleName();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error while flushing index updates", e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        flushQuietly();
+    }
+}
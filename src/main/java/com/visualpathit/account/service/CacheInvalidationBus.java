@@ -0,0 +1,171 @@
+package com.visualpathit.account.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.visualpathit.account.utils.ExpiringCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.annotation.Exchange;
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.QueueBinding;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps in-process caches consistent across app nodes.
+ *
+ * Caches register under a name. A write calls {@link #invalidate}, which evicts
+ * the key locally at once and queues it; every cache.invalidation.flushMs the
+ * queued keys are sent as one message on the facelink.invalidation fanout
+ * exchange. Each node listens on its own anonymous queue, skips messages it
+ * sent itself and evicts exactly the keys listed.
+ *
+ * Messages are transient: a node that is disconnected when one is sent keeps
+ * the stale entry until its TTL runs out, so registered caches must have one.
+ */
+@Service
+public class CacheInvalidationBus implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    public static final String EXCHANGE = "facelink.invalidation";
+    public static final String HEADER_NODE = "x-origin-node";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Set<String>>> BODY = new TypeReference<Map<String, Set<String>>>() {
+    };
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, ExpiringCache<String, ?>> caches = new ConcurrentHashMap<>();
+
+    /** Keys waiting for the next flush, by cache name; guarded by this */
+    private Map<String, Set<String>> pending = new HashMap<>();
+    private int pendingKeys;
+
+    @Autowired
+    private ProducerService producerService;
+
+    @Value("${cache.invalidation.flushMs:50}")
+    private long flushMs = 50;
+
+    @Value("${cache.invalidation.maxKeysPerMessage:500}")
+    private int maxKeysPerMessage = 500;
+
+    private ScheduledExecutorService scheduler;
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void register(String name, ExpiringCache<String, ?> cache) {
+        caches.put(name, cache);
+    }
+
+    /**
+     * Evict a key here now and on every other node shortly after
+     */
+    public void invalidate(String cache, String key) {
+        evict(cache, key);
+        boolean full;
+        synchronized (this) {
+            if (pending.computeIfAbsent(cache, name -> new LinkedHashSet<>()).add(key)) {
+                pendingKeys++;
+            }
+            full = pendingKeys >= maxKeysPerMessage;
+        }
+        if (full && scheduler != null) {
+            scheduler.execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        Map<String, Set<String>> batch;
+        synchronized (this) {
+            if (pendingKeys == 0) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+            pendingKeys = 0;
+        }
+        try {
+            if (!producerService.publish(EXCHANGE, "", encode(nodeId, batch))) {
+                logger.warn("Dropped cache invalidations for {}: outbound buffer full", batch.keySet());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not send cache invalidations for {}: {}", batch.keySet(), e.getMessage());
+        }
+    }
+
+    @RabbitListener(bindings = @QueueBinding(value = @Queue(),
+            exchange = @Exchange(value = EXCHANGE, type = ExchangeTypes.FANOUT)))
+    public void onInvalidation(Message message) {
+        if (nodeId.equals(message.getMessageProperties().getHeader(HEADER_NODE))) {
+            return;
+        }
+        Map<String, Set<String>> keys;
+        try {
+            keys = MAPPER.readValue(message.getBody(), BODY);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable cache invalidation: {}", e.getMessage());
+            return;
+        }
+        keys.forEach((cache, cacheKeys) -> cacheKeys.forEach(key -> evict(cache, key)));
+    }
+
+    private void evict(String cache, String key) {
+        ExpiringCache<String, ?> registered = caches.get(cache);
+        if (registered != null) {
+            registered.remove(key);
+        }
+    }
+
+    public static Message encode(String nodeId, Map<String, Set<String>> keys) {
+        try {
+            return MessageBuilder.withBody(MAPPER.writeValueAsBytes(keys))
+                    .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                    .setDeliveryMode(MessageDeliveryMode.NON_PERSISTENT)
+                    .setHeader(HEADER_NODE, nodeId)
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot encode cache invalidation", e);
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+        flush();
+    }
+}
@@ -1,6 +1,21 @@
 package com.visualpathit.account.service;
 
+import java.io.IOException;
+import java.util.List;
+
+import com.rabbitmq.client.Channel;
+import org.springframework.amqp.core.Message;
+
 public interface ConsumerService {
 
-    void consumerMessage(byte[] data);
+    /**
+     * Handle a batch of messages; the batch is acknowledged once this returns
+     */
+    void consumerMessages(List<Message> messages);
+
+    /**
+     * Handle a batch of post activity events (post.*) from the facelink.events exchange;
+     * each message is acknowledged on the channel as it is dealt with
+     */
+    void consumePostEvents(List<Message> messages, Channel channel) throws IOException;
 }
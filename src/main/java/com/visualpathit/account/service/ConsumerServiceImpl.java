@@ -1,29 +1,104 @@
 package com.visualpathit.account.service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.rabbitmq.client.Channel;
+import com.visualpathit.account.event.DomainEvent;
+import com.visualpathit.account.event.DomainEventCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.Exchange;
 import org.springframework.amqp.rabbit.annotation.Queue;
 import org.springframework.amqp.rabbit.annotation.QueueBinding;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ConsumerServiceImpl implements ConsumerService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerServiceImpl.class);
+
     /**
         The name of the exchange.
      */
     private static final String EXCHANGE_NAME = "messages";
 
+    public static final String POST_ACTIVITY_QUEUE = "facelink.post-activity";
+
+    @Autowired
+    private MessageFailureHandler failureHandler;
+
     /**
-     *  The function that consumes messages from the broker(RabbitMQ)
-     * @param data
+     *  The function that consumes messages from the broker(RabbitMQ).
+     *  Messages arrive in batches of up to rabbitmq.consumer.batchSize and are
+     *  acknowledged together when this method returns; an exception rejects the batch.
+     * @param messages
      */
     @Override
-    @RabbitListener(bindings = @QueueBinding( value = @Queue(),
+    @RabbitListener(containerFactory = "batchRabbitListenerContainerFactory",
+            bindings = @QueueBinding( value = @Queue(),
             exchange = @Exchange(value = EXCHANGE_NAME, type = ExchangeTypes.FANOUT)))
-    public void consumerMessage(byte[] data) {
-        String consumedMessage = new String(data);
-        System.out.println(" [x] Consumed  '" + consumedMessage + "'");
+    public void consumerMessages(List<Message> messages) {
+        for (Message message : messages) {
+            logger.debug("Consumed '{}'", new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+        logger.info("Consumed a batch of {} messages", messages.size());
+    }
+
+    /**
+     *  Post activity feed. The queue is bound to post.* only, so user events are
+     *  never delivered here. A message that fails is handed to the MessageFailureHandler
+     *  on its own: events this code cannot read are parked, other failures are retried
+     *  later, and the rest of the batch is processed as usual.
+     *
+     *  Messages are acknowledged one by one, so that a failed message is only acknowledged
+     *  once the broker has confirmed its copy in a retry tier or the parking lot. If that
+     *  copy was not confirmed, the original alone is requeued.
+     * @param messages
+     */
+    @Override
+    @RabbitListener(containerFactory = "batchRabbitListenerContainerFactory", ackMode = "MANUAL",
+            bindings = @QueueBinding(value = @Queue(value = POST_ACTIVITY_QUEUE, durable = "true"),
+            exchange = @Exchange(value = DomainEventCodec.EXCHANGE, type = ExchangeTypes.TOPIC),
+            key = "post.*"))
+    public void consumePostEvents(List<Message> messages, Channel channel) throws IOException {
+        int requeued = 0;
+        for (Message message : messages) {
+            long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            if (handlePostEvent(message)) {
+                channel.basicAck(deliveryTag, false);
+            } else {
+                channel.basicNack(deliveryTag, false, true);
+                requeued++;
+            }
+        }
+        logger.info("Consumed a batch of {} post events ({} requeued)", messages.size(), requeued);
+    }
+
+    /**
+     * @return true if the message was handled or moved out of the queue, false if it must be requeued
+     */
+    private boolean handlePostEvent(Message message) {
+        DomainEvent event;
+        try {
+            event = DomainEventCodec.decode(message);
+        } catch (IllegalArgumentException e) {
+            return failureHandler.handle(POST_ACTIVITY_QUEUE, message, e, false);
+        }
+        try {
+            onPostEvent(event);
+            return true;
+        } catch (RuntimeException e) {
+            return failureHandler.handle(POST_ACTIVITY_QUEUE, message, e, true);
+        }
+    }
+
+    private void onPostEvent(DomainEvent event) {
+        logger.debug("{} on post {} by user {}", event.getType(), event.getSubjectId(), event.getActorId());
     }
 }
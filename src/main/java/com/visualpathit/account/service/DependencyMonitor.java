@@ -0,0 +1,296 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.beans.Components;
+import com.visualpathit.account.utils.ElasticsearchUtil;
+import com.visualpathit.account.utils.VirtualThreads;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Probes MySQL, RabbitMQ, Memcached and Elasticsearch in the background.
+ *
+ * Every health.probe.intervalMs all four checks run concurrently, each bounded
+ * by health.probe.timeoutMs, and the results replace the current snapshot in
+ * one step. Probe endpoints only read that snapshot, so the load a dependency
+ * sees is one check per interval per node however often Kubernetes polls.
+ * Checks reuse the shared pools and connections instead of opening new ones.
+ *
+ * A check stuck in socket or JDBC I/O cannot be interrupted, so a dependency
+ * never has more than one check in flight: while the previous one is still
+ * running it is reported DOWN without starting another. With four dependencies
+ * and four check threads, a hung broker or search cluster can never take the
+ * thread the MySQL check needs.
+ */
+@Service
+public class DependencyMonitor implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyMonitor.class);
+
+    public static final String MYSQL = "mysql";
+    public static final String RABBITMQ = "rabbitmq";
+    public static final String MEMCACHED = "memcached";
+    public static final String ELASTICSEARCH = "elasticsearch";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private Components components;
+
+    @Value("${health.probe.intervalMs:5000}")
+    private long intervalMs = 5000;
+
+    @Value("${health.probe.timeoutMs:2000}")
+    private long timeoutMs = 2000;
+
+    @Value("${threads.virtual:false}")
+    private boolean virtualThreads = false;
+
+    private volatile Map<String, Status> snapshot = Collections.emptyMap();
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService checks;
+
+    /** Latest check of each dependency, possibly still running; used by the scheduler thread only */
+    private final Map<String, InFlight> inFlight = new HashMap<>();
+
+    /**
+     * @return the latest result for a dependency, or an "unknown" status before the first probe
+     */
+    public Status get(String dependency) {
+        Status status = snapshot.get(dependency);
+        return status != null ? status : Status.UNKNOWN;
+    }
+
+    /**
+     * @return the latest result of every check, in a fixed order
+     */
+    public Map<String, Status> getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return true if the dependency was up at the last probe and that probe is recent
+     */
+    public boolean isUp(String dependency) {
+        Status status = get(dependency);
+        return status.isUp() && System.currentTimeMillis() - status.getCheckedAt() <= 3 * intervalMs + timeoutMs;
+    }
+
+    private void probe() {
+        Map<String, Callable<String>> all = new LinkedHashMap<>();
+        all.put(MYSQL, this::checkMysql);
+        all.put(RABBITMQ, this::checkRabbitMq);
+        all.put(MEMCACHED, this::checkMemcached);
+        all.put(ELASTICSEARCH, this::checkElasticsearch);
+
+        long started = System.currentTimeMillis();
+        Map<String, Status> stuck = new HashMap<>();
+        all.forEach((name, check) -> {
+            InFlight previous = inFlight.get(name);
+            if (previous != null && !previous.check.isDone()) {
+                long running = started - previous.startedAt;
+                stuck.put(name, new Status(false, "previous check still running after " + running + " ms",
+                        running, started));
+            } else {
+                inFlight.put(name, new InFlight(checks.submit(check), started));
+            }
+        });
+
+        long deadline = started + timeoutMs;
+        Map<String, Status> results = new LinkedHashMap<>();
+        for (String name : all.keySet()) {
+            Status status = stuck.get(name);
+            if (status == null) {
+                status = await(inFlight.get(name).check, started, deadline);
+            }
+            Status previous = snapshot.get(name);
+            if (previous != null && previous.isUp() != status.isUp()) {
+                logger.warn("{} is now {} ({})", name, status.isUp() ? "UP" : "DOWN", status.getDetail());
+            }
+            results.put(name, status);
+        }
+        snapshot = Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * A check that misses the deadline is left to finish; cancelling would not stop its I/O
+     */
+    private Status await(Future<String> check, long started, long deadline) {
+        try {
+            String detail = check.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            return new Status(true, detail, System.currentTimeMillis() - started, System.currentTimeMillis());
+        } catch (TimeoutException e) {
+            return new Status(false, "no answer within " + timeoutMs + " ms", timeoutMs, System.currentTimeMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Status(false, "probe interrupted", System.currentTimeMillis() - started, System.currentTimeMillis());
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return new Status(false, cause.getClass().getSimpleName() + ": " + cause.getMessage(),
+                    System.currentTimeMillis() - started, System.currentTimeMillis());
+        }
+    }
+
+    private String checkMysql() throws Exception {
+        try (java.sql.Connection connection = dataSource.getConnection()) {
+            if (!connection.isValid((int) Math.max(1, timeoutMs / 1000))) {
+                throw new IllegalStateException("connection is not valid");
+            }
+            return "ok";
+        }
+    }
+
+    /**
+     * The caching factory hands back its shared connection, so this opens nothing new while the broker is up
+     */
+    private String checkRabbitMq() {
+        try (Connection connection = connectionFactory.createConnection()) {
+            if (!connection.isOpen()) {
+                throw new IllegalStateException("connection is closed");
+            }
+            return "ok";
+        }
+    }
+
+    /**
+     * Active host first, then stand-by, as MemcachedUtils does
+     */
+    private String checkMemcached() throws Exception {
+        try {
+            return memcachedVersion(components.getActiveHost(), components.getActivePort());
+        } catch (Exception e) {
+            return memcachedVersion(components.getStandByHost(), components.getStandByPort()) + " (stand-by)";
+        }
+    }
+
+    private String memcachedVersion(String host, String port) throws Exception {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, Integer.parseInt(port)), (int) timeoutMs);
+            socket.setSoTimeout((int) timeoutMs);
+            OutputStream out = socket.getOutputStream();
+            out.write("version\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            byte[] reply = new byte[64];
+            int read = in.read(reply);
+            String line = read > 0 ? new String(reply, 0, read, StandardCharsets.US_ASCII).trim() : "";
+            if (!line.startsWith("VERSION")) {
+                throw new IllegalStateException("unexpected reply from " + host + ": " + line);
+            }
+            return line;
+        }
+    }
+
+    private String checkElasticsearch() throws Exception {
+        RestHighLevelClient client = ElasticsearchUtil.getRestHighLevelClient();
+        if (client == null) {
+            throw new IllegalStateException("client is not available");
+        }
+        if (!client.ping(RequestOptions.DEFAULT)) {
+            throw new IllegalStateException("ping failed");
+        }
+        return ElasticsearchUtil.getCircuitBreaker().isOpen() ? "ok (search circuit open)" : "ok";
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // One thread per dependency, since each has at most one check in flight
+        checks = VirtualThreads.newBoundedExecutor("dependency-check-", 4, virtualThreads);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dependency-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                probe();
+            } catch (RuntimeException e) {
+                logger.warn("Dependency probe failed: {}", e.getMessage());
+            }
+        }, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        checks.shutdownNow();
+    }
+
+    private static final class InFlight {
+
+        private final Future<String> check;
+        private final long startedAt;
+
+        private InFlight(Future<String> check, long startedAt) {
+            this.check = check;
+            this.startedAt = startedAt;
+        }
+    }
+
+    /**
+     * Result of one check
+     */
+    public static final class Status {
+
+        static final Status UNKNOWN = new Status(false, "not checked yet", 0, 0);
+
+        private final boolean up;
+        private final String detail;
+        private final long latencyMs;
+        private final long checkedAt;
+
+        public Status(boolean up, String detail, long latencyMs, long checkedAt) {
+            this.up = up;
+            this.detail = detail;
+            this.latencyMs = latencyMs;
+            this.checkedAt = checkedAt;
+        }
+
+        public boolean isUp() {
+            return up;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+
+        public long getLatencyMs() {
+            return latencyMs;
+        }
+
+        public long getCheckedAt() {
+            return checkedAt;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.event.DomainEvent;
+import com.visualpathit.account.event.DomainEventCodec;
+import com.visualpathit.account.event.EventType;
+import com.visualpathit.account.event.PostChangedEvent;
+import com.visualpathit.account.event.PostLikedEvent;
+import com.visualpathit.account.event.ProfilePhotoChangedEvent;
+import com.visualpathit.account.event.UserChangedEvent;
+import com.visualpathit.account.model.OutboxEvent;
+import com.visualpathit.account.model.Post;
+import com.visualpathit.account.model.User;
+import com.visualpathit.account.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Turns in-process change events into typed DomainEvents for the
+ * facelink.events topic exchange.
+ *
+ * Events are not sent from here: they are written to the outbox inside the
+ * transaction that made the change (BEFORE_COMMIT), so they commit or roll back
+ * with it, and the OutboxRelay sends them afterwards.
+ */
+@Service
+public class DomainEventPublisher {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        User user = event.getUser();
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        EventType type = event.isCreated() ? EventType.USER_REGISTERED : EventType.USER_UPDATED;
+        publish(new DomainEvent(type, user.getId(), user.getId()).with("username", user.getUsername()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProfilePhotoChanged(ProfilePhotoChangedEvent event) {
+        User user = event.getUser();
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        publish(new DomainEvent(EventType.PROFILE_PHOTO_CHANGED, user.getId(), user.getId())
+                .with("profileImg", user.getProfileImg()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        Post post = event.getPost();
+        if (post == null || post.getId() == null) {
+            return;
+        }
+        publish(new DomainEvent(EventType.POST_CREATED, post.getId(),
+                post.getAuthor() != null ? post.getAuthor().getId() : null)
+                .with("createdAt", post.getCreatedAt() != null ? post.getCreatedAt().toString() : null));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onPostLiked(PostLikedEvent event) {
+        Post post = event.getPost();
+        if (post == null || post.getId() == null) {
+            return;
+        }
+        EventType type = event.isLiked() ? EventType.POST_LIKED : EventType.POST_UNLIKED;
+        publish(new DomainEvent(type, post.getId(), event.getUser() != null ? event.getUser().getId() : null)
+                .with("likesCount", post.getLikesCount()));
+    }
+
+    private void publish(DomainEvent event) {
+        outboxEventRepository.save(new OutboxEvent(event.getId(), DomainEventCodec.EXCHANGE,
+                event.getType().getRoutingKey(), DomainEventCodec.SCHEMA_VERSION, DomainEventCodec.toBytes(event)));
+    }
+}
@@ -0,0 +1,444 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.utils.ExpiringCache;
+import com.visualpathit.account.utils.ImageUtils;
+import net.coobird.thumbnailator.Thumbnails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fetches the external images posts link to, once, and keeps them on local disk.
+ *
+ * Post.imageUrl can point anywhere, so rather than having every browser load
+ * it from its origin, the timeline asks this node for it. The first request
+ * downloads at most imgproxy.maxSourceBytes, decodes it (see ImageUtils),
+ * scales it down to imgproxy.width, the width of the timeline column, and
+ * stores the result under imgproxy.cacheDir; later requests are a file read.
+ * The cache is bounded by imgproxy.maxCacheBytes, evicting the least recently
+ * served images first. Concurrent requests for an image being fetched wait for
+ * that fetch, and failures are remembered for imgproxy.failureTtlMs so a dead
+ * origin is not asked again on every page view.
+ *
+ * Since the URLs come from users, only http and https are fetched, and hosts
+ * resolving to loopback, private or link-local addresses are refused, at every
+ * redirect, unless imgproxy.allowPrivateNetworks is set. The check runs in the
+ * HTTP client's DNS resolver, so the connection goes to the very addresses
+ * that were checked and a host cannot rebind to an internal one in between.
+ *
+ * A fetch runs on the requesting thread, so it is given imgproxy.fetchTimeoutMs
+ * overall, redirects and body included, after which the connection is aborted;
+ * requests waiting on that fetch give up after the same time.
+ */
+@Service
+public class ImageProxyService implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageProxyService.class);
+
+    private static final int MAX_REDIRECTS = 3;
+    private static final float QUALITY = 0.85f;
+
+    @Value("${imgproxy.cacheDir:/var/lib/facelink/cache/img-proxy}")
+    private String cacheDir = "/var/lib/facelink/cache/img-proxy";
+
+    @Value("${imgproxy.maxCacheBytes:536870912}")
+    private long maxCacheBytes = 512L * 1024 * 1024;
+
+    @Value("${imgproxy.maxSourceBytes:10485760}")
+    private long maxSourceBytes = 10L * 1024 * 1024;
+
+    @Value("${imgproxy.maxPixels:40000000}")
+    private long maxPixels = 40_000_000L;
+
+    @Value("${imgproxy.width:750}")
+    private int width = 750;
+
+    @Value("${imgproxy.timeoutMs:5000}")
+    private long timeoutMs = 5000;
+
+    @Value("${imgproxy.fetchTimeoutMs:10000}")
+    private long fetchTimeoutMs = 10000;
+
+    @Value("${imgproxy.failureTtlMs:300000}")
+    private long failureTtlMs = 300000;
+
+    @Value("${imgproxy.allowPrivateNetworks:false}")
+    private boolean allowPrivateNetworks = false;
+
+    /** File name of every cached image by key, least recently served first */
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private ExpiringCache<String, String> failures;
+    private CloseableHttpClient client;
+    private ScheduledExecutorService deadlines;
+
+    /**
+     * The local copy of an external image, fetching it first if needed
+     *
+     * @return a JPEG, or a PNG if the image has transparency
+     * @throws IllegalArgumentException if the URL or what it points at is refused
+     * @throws IOException if the image could not be fetched or decoded
+     */
+    public Path getImage(String url) throws IOException {
+        String key = keyOf(url);
+        Path cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        String failure = failures.get(key);
+        if (failure != null) {
+            throw new IOException(failure);
+        }
+
+        CompletableFuture<Path> fetch = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(key, fetch);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            Path stored = fetchAndStore(url, key);
+            fetch.complete(stored);
+            return stored;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not proxy image {}: {}", url, e.getMessage());
+            failures.put(key, e.getMessage());
+            fetch.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    public synchronized int getCachedCount() {
+        return index.size();
+    }
+
+    private synchronized Path lookup(String key) {
+        Entry entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        Path file = Paths.get(cacheDir, entry.fileName);
+        if (!Files.isRegularFile(file)) {
+            // Removed behind our back
+            index.remove(key);
+            cachedBytes -= entry.size;
+            return null;
+        }
+        return file;
+    }
+
+    private Path fetchAndStore(String url, String key) throws IOException {
+        Path source = download(url);
+        try {
+            BufferedImage decoded = ImageUtils.readSubsampled(source, width, maxPixels);
+            boolean transparent = decoded.getColorModel().hasAlpha();
+            BufferedImage scaled = Thumbnails.of(decoded)
+                    .width(Math.min(width, decoded.getWidth()))
+                    .imageType(transparent ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB)
+                    .asBufferedImage();
+
+            Path target = Paths.get(cacheDir, key + (transparent ? ".png" : ".jpg"));
+            Path temp = Files.createTempFile(Paths.get(cacheDir), key, ".tmp");
+            try {
+                if (transparent) {
+                    ImageIO.write(scaled, "png", temp.toFile());
+                } else {
+                    ImageUtils.writeJpeg(scaled, temp, QUALITY, true);
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            add(key, target.getFileName().toString(), Files.size(target));
+            return target;
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    /**
+     * Download to a temporary file, following a few redirects, each checked like the first URL
+     */
+    private Path download(String url) throws IOException {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Not a valid URL");
+        }
+        long deadline = System.currentTimeMillis() + fetchTimeoutMs;
+        for (int redirects = 0; ; redirects++) {
+            checkAllowed(uri);
+            HttpGet request = new HttpGet(uri);
+            request.setHeader(HttpHeaders.ACCEPT, "image/*");
+            ScheduledFuture<?> abort = deadlines.schedule(request::abort,
+                    Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            try (CloseableHttpResponse response = client.execute(request)) {
+                int status = response.getStatusLine().getStatusCode();
+                Header location = response.getFirstHeader(HttpHeaders.LOCATION);
+                if (status >= 300 && status < 400 && location != null) {
+                    if (redirects >= MAX_REDIRECTS) {
+                        throw new IOException("Too many redirects");
+                    }
+                    uri = uri.resolve(location.getValue());
+                    continue;
+                }
+                HttpEntity entity = response.getEntity();
+                if (status != 200 || entity == null) {
+                    throw new IOException("Origin answered " + status);
+                }
+                Header contentType = entity.getContentType();
+                String type = contentType != null ? contentType.getValue().toLowerCase(Locale.ROOT) : "";
+                // SVG can carry scripts, and ImageIO does not read it anyway
+                if (!type.startsWith("image/") || type.contains("svg")) {
+                    throw new IllegalArgumentException("Not an image: " + type);
+                }
+                if (entity.getContentLength() > maxSourceBytes) {
+                    throw new IllegalArgumentException("Image is larger than " + maxSourceBytes + " bytes");
+                }
+                try (InputStream body = entity.getContent()) {
+                    return copyLimited(body);
+                }
+            } catch (IOException e) {
+                if (request.isAborted()) {
+                    throw new IOException("Fetching " + uri.getHost() + " took longer than " + fetchTimeoutMs + " ms");
+                }
+                throw e;
+            } finally {
+                abort.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Origins may send no length or a wrong one, so the limit is enforced while reading
+     */
+    private Path copyLimited(InputStream body) throws IOException {
+        Path temp = Files.createTempFile(Files.createDirectories(Paths.get(cacheDir)), "fetch", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                total += read;
+                if (total > maxSourceBytes) {
+                    throw new IllegalArgumentException("Image is larger than " + maxSourceBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+            return temp;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private static void checkAllowed(URI uri) {
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "";
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            throw new IllegalArgumentException("Only http and https images are proxied");
+        }
+        if (uri.getHost() == null) {
+            throw new IllegalArgumentException("URL has no host");
+        }
+    }
+
+    /**
+     * The client's DNS resolver: the addresses returned are the ones connected to
+     */
+    private InetAddress[] resolve(String host) throws UnknownHostException {
+        InetAddress[] addresses = InetAddress.getAllByName(host);
+        if (!allowPrivateNetworks) {
+            for (InetAddress address : addresses) {
+                if (isInternal(address)) {
+                    throw new IllegalArgumentException("Host " + host + " is on an internal network");
+                }
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * @return true for loopback, private (including IPv6 unique local), link-local, wildcard and multicast addresses
+     */
+    private static boolean isInternal(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        return address.isLoopbackAddress() || address.isSiteLocalAddress() || address.isLinkLocalAddress()
+                || address.isAnyLocalAddress() || address.isMulticastAddress()
+                || (bytes.length == 16 && (bytes[0] & 0xfe) == 0xfc);
+    }
+
+    private synchronized void add(String key, String fileName, long size) {
+        Entry previous = index.put(key, new Entry(fileName, size));
+        cachedBytes += size - (previous != null ? previous.size : 0);
+        Iterator<Map.Entry<String, Entry>> eldest = index.entrySet().iterator();
+        while (cachedBytes > maxCacheBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> evicted = eldest.next();
+            if (evicted.getKey().equals(key)) {
+                continue;
+            }
+            eldest.remove();
+            cachedBytes -= evicted.getValue().size;
+            try {
+                Files.deleteIfExists(Paths.get(cacheDir, evicted.getValue().fileName));
+            } catch (IOException e) {
+                logger.warn("Could not delete cached image {}: {}", evicted.getValue().fileName, e.getMessage());
+            }
+        }
+    }
+
+    private Path await(CompletableFuture<Path> fetch) throws IOException {
+        try {
+            return fetch.get(fetchTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IOException("Gave up waiting for an image fetch after " + fetchTimeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an image fetch");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * The width is part of the key, so changing it does not serve images scaled for another one
+     */
+    private String keyOf(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((width + "|" + url).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Rebuild the index from the cache directory, oldest first, as the closest thing to the last order of use
+     */
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        failures = new ExpiringCache<>(failureTtlMs, 10000);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) timeoutMs)
+                .setSocketTimeout((int) timeoutMs)
+                .setConnectionRequestTimeout((int) timeoutMs)
+                .setRedirectsEnabled(false)
+                .build();
+        client = HttpClients.custom()
+                .setDnsResolver(this::resolve)
+                .setDefaultRequestConfig(requestConfig)
+                .setMaxConnTotal(50)
+                .setMaxConnPerRoute(10)
+                .disableRedirectHandling()
+                // Once, and only if the request was not sent: a pooled connection the origin had closed
+                .setRetryHandler(new DefaultHttpRequestRetryHandler(1, false))
+                .disableCookieManagement()
+                .build();
+        deadlines = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "img-proxy-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Path dir = Paths.get(cacheDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path file : stream) {
+                if (file.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(file -> file.toFile().lastModified()));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            if (dot > 0) {
+                add(name.substring(0, dot), name, Files.size(file));
+            }
+        }
+        logger.info("Image proxy cache holds {} images, {} bytes", index.size(), cachedBytes);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        deadlines.shutdownNow();
+        client.close();
+    }
+
+    private static final class Entry {
+
+        private final String fileName;
+        private final long size;
+
+        private Entry(String fileName, long size) {
+            this.fileName = fileName;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.visualpathit.account.service;
+
+/**
+ * A search cursor that was not produced by SearchServiceImpl#encodeCursor
+ */
+public class InvalidCursorException extends IllegalArgumentException {
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,307 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.event.PostChangedEvent;
+import com.visualpathit.account.event.UserChangedEvent;
+import com.visualpathit.account.model.Post;
+import com.visualpathit.account.model.User;
+import com.visualpathit.account.repository.PostRepository;
+import com.visualpathit.account.repository.UserRepository;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded Lucene index of users and recent posts.
+ *
+ * It is fed by the same change events as the Elasticsearch indexers and serves
+ * searches when the Elasticsearch circuit is open, or on its own when
+ * search.mode=local. The index lives in memory and is rebuilt from MySQL at
+ * startup; a background thread reopens the reader so new documents become
+ * searchable within search.local.refreshMs.
+ */
+@Service
+public class LocalSearchIndex implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalSearchIndex.class);
+
+    private static final String KEY = "_key";
+    private static final String TYPE = "_type";
+    private static final String ID = "id";
+    private static final String CREATED = "_created";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Value("${search.mode:auto}")
+    private String mode = SearchService.MODE_AUTO;
+
+    @Value("${search.local.postDays:90}")
+    private int postDays = 90;
+
+    @Value("${search.local.refreshMs:1000}")
+    private long refreshMs = 1000;
+
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean ready = false;
+
+    /**
+     * @return true once the startup load has finished and searches can be served
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    private boolean isEnabled() {
+        return !SearchService.MODE_ELASTICSEARCH.equals(mode);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        User user = event.getUser();
+        if (writer != null && user != null && user.getId() != null) {
+            putQuietly(SearchService.TYPE_USERS, user.getId(), UserIndexer.toDocument(user), null);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        Post post = event.getPost();
+        if (writer != null && post != null && post.getId() != null) {
+            putQuietly(SearchService.TYPE_POSTS, post.getId(), PostIndexer.toDocument(post), post.getCreatedAt());
+        }
+    }
+
+    /**
+     * Same contract as {@link SearchService#search}, without highlighting.
+     * Only posts from the last search.local.postDays days are held locally.
+     */
+    public SearchResults search(String query, String type, String after, int pageSize) throws IOException {
+        if (!ready) {
+            throw new IOException("Local search index is not loaded yet");
+        }
+        Sort sort = new Sort(SortField.FIELD_SCORE,
+                new SortField(TYPE, SortField.Type.STRING),
+                new SortField(ID, SortField.Type.LONG));
+        Object[] cursor = after != null && !after.isEmpty() ? SearchServiceImpl.decodeCursor(after) : null;
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            FieldDoc searchAfter = null;
+            if (cursor != null) {
+                // (type, id) is unique, so the doc number only has to rank at or after the cursor's own document
+                searchAfter = new FieldDoc(Math.max(0, searcher.getIndexReader().maxDoc() - 1), (Float) cursor[0],
+                        new Object[]{cursor[0], new BytesRef(SearchServiceImpl.typeOf((String) cursor[1])), cursor[2]});
+            }
+            TopFieldDocs top = searcher.searchAfter(searchAfter, buildQuery(query, type), pageSize, sort, true);
+            SearchResults results = new SearchResults();
+            results.setTotal(top.totalHits.value);
+            FieldDoc last = null;
+            for (ScoreDoc scoreDoc : top.scoreDocs) {
+                Document document = searcher.doc(scoreDoc.doc);
+                results.getHits().add(new SearchResults.Hit(document.get(TYPE), document.get(ID), scoreDoc.score,
+                        toSource(document), Collections.emptyMap()));
+                last = (FieldDoc) scoreDoc;
+            }
+            if (last != null && top.scoreDocs.length == pageSize) {
+                results.setNextCursor(SearchServiceImpl.encodeCursor(new Object[]{
+                        last.fields[0], ((BytesRef) last.fields[1]).utf8ToString(), last.fields[2]}));
+            }
+            return results;
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private static Query buildQuery(String query, String type) {
+        String[] fields;
+        if (SearchService.TYPE_USERS.equals(type)) {
+            fields = SearchServiceImpl.USER_FIELDS;
+        } else if (SearchService.TYPE_POSTS.equals(type)) {
+            fields = SearchServiceImpl.POST_FIELDS;
+        } else {
+            fields = concat(SearchServiceImpl.USER_FIELDS, SearchServiceImpl.POST_FIELDS);
+        }
+
+        // Field lists use the Elasticsearch "name^3" boost syntax
+        String[] names = new String[fields.length];
+        Map<String, Float> boosts = new HashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            String[] parts = fields[i].split("\\^");
+            names[i] = parts[0];
+            boosts.put(parts[0], parts.length > 1 ? Float.parseFloat(parts[1]) : 1f);
+        }
+
+        Query text;
+        try {
+            text = new MultiFieldQueryParser(names, new StandardAnalyzer(), boosts).parse(QueryParser.escape(query));
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Unparseable query", e);
+        }
+        if (SearchService.TYPE_ALL.equals(type)) {
+            return text;
+        }
+        return new BooleanQuery.Builder()
+                .add(text, BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(TYPE, type)), BooleanClause.Occur.FILTER)
+                .build();
+    }
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] all = new String[first.length + second.length];
+        System.arraycopy(first, 0, all, 0, first.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        return all;
+    }
+
+    private static Map<String, Object> toSource(Document document) {
+        Map<String, Object> source = new LinkedHashMap<>();
+        for (IndexableField field : document.getFields()) {
+            if (field.fieldType().stored() && !field.name().startsWith("_")) {
+                source.put(field.name(), field.numericValue() != null ? field.numericValue() : field.stringValue());
+            }
+        }
+        return source;
+    }
+
+    private void putQuietly(String type, Long id, Map<String, Object> source, LocalDateTime createdAt) {
+        try {
+            put(type, id, source, createdAt);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not update local search index for {} {}: {}", type, id, e.getMessage());
+        }
+    }
+
+    private void put(String type, Long id, Map<String, Object> source, LocalDateTime createdAt) throws IOException {
+        String key = type + ':' + id;
+        Document document = new Document();
+        document.add(new StringField(KEY, key, Field.Store.NO));
+        document.add(new StringField(TYPE, type, Field.Store.YES));
+        document.add(new SortedDocValuesField(TYPE, new BytesRef(type)));
+        document.add(new StoredField(ID, id));
+        document.add(new NumericDocValuesField(ID, id));
+        if (createdAt != null) {
+            document.add(new LongPoint(CREATED, createdAt.toInstant(ZoneOffset.UTC).toEpochMilli()));
+        }
+        for (Map.Entry<String, Object> entry : source.entrySet()) {
+            if (entry.getValue() != null && !ID.equals(entry.getKey())) {
+                document.add(new TextField(entry.getKey(), entry.getValue().toString(), Field.Store.YES));
+            }
+        }
+        writer.updateDocument(new Term(KEY, key), document);
+    }
+
+    private void load() {
+        try {
+            for (User user : userRepository.findAll()) {
+                put(SearchService.TYPE_USERS, user.getId(), UserIndexer.toDocument(user), null);
+            }
+            for (Post post : postRepository.findByCreatedAtAfter(LocalDateTime.now().minusDays(postDays))) {
+                put(SearchService.TYPE_POSTS, post.getId(), PostIndexer.toDocument(post), post.getCreatedAt());
+            }
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+            ready = true;
+            logger.info("Local search index loaded with {} documents", writer.getDocStats().numDocs);
+        } catch (Exception e) {
+            logger.warn("Could not load local search index, retrying: {}", e.getMessage());
+            scheduler.schedule(this::load, 30, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Drop posts that have aged out of the local window
+     */
+    private void prune() {
+        try {
+            long cutoff = LocalDateTime.now().minusDays(postDays).toInstant(ZoneOffset.UTC).toEpochMilli();
+            writer.deleteDocuments(LongPoint.newRangeQuery(CREATED, Long.MIN_VALUE, cutoff - 1));
+        } catch (IOException e) {
+            logger.warn("Could not prune local search index: {}", e.getMessage());
+        }
+    }
+
+    private void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            logger.warn("Could not refresh local search reader: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        searcherManager = new SearcherManager(writer, null);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "local-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::load);
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::prune, 1, 1, TimeUnit.HOURS);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        searcherManager.close();
+        writer.close();
+    }
+}
@@ -0,0 +1,142 @@
+package com.visualpathit.account.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes a message that a consumer could not handle out of its queue.
+ *
+ * Retryable failures go to the next retry tier, a queue with a message TTL
+ * whose dead-letter route leads back to the source queue, so the message comes
+ * back after 1s, then 10s, then 60s (see appconfig-rabbitmq.xml). After the
+ * last tier, or straight away for failures that cannot succeed on retry, the
+ * message goes to the source queue's parking lot to be inspected by hand.
+ *
+ * Either way the message is only moved once the broker confirms the copy,
+ * waiting at most rabbitmq.retry.confirmTimeoutMs; until then the caller must
+ * not acknowledge the original. A failed move is reported rather than thrown,
+ * so the rest of a batch is still handled and acknowledged.
+ */
+@Service
+public class MessageFailureHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageFailureHandler.class);
+
+    /**
+     * Number of delayed retry queues declared per source queue
+     */
+    public static final int RETRY_TIERS = 3;
+
+    public static final String HEADER_ATTEMPTS = "x-retry-attempts";
+    public static final String HEADER_REASON = "x-failure-reason";
+
+    @Autowired
+    private RabbitTemplate amqpTemplate;
+
+    @Value("${rabbitmq.retry.confirmTimeoutMs:5000}")
+    private long confirmTimeoutMs = 5000;
+
+    private final Map<String, AtomicLong> failures = new ConcurrentHashMap<>();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong parked = new AtomicLong();
+
+    public static String retryQueue(String queue, int tier) {
+        return queue + ".retry." + tier;
+    }
+
+    public static String parkingLot(String queue) {
+        return queue + ".parking-lot";
+    }
+
+    /**
+     * Move a failed message to its next retry tier or to the parking lot
+     *
+     * @param queue the queue the message was consumed from
+     * @param retryable false if handling the same message again cannot succeed, e.g. it cannot be decoded
+     * @return true once the broker has confirmed the copy; false if it did not, and the original must be requeued
+     */
+    public boolean handle(String queue, Message message, Exception error, boolean retryable) {
+        String reason = error.getClass().getSimpleName();
+        failures.computeIfAbsent(reason, key -> new AtomicLong()).incrementAndGet();
+
+        MessageProperties properties = message.getMessageProperties();
+        int attempts = attemptsOf(message) + 1;
+        properties.setHeader(HEADER_ATTEMPTS, attempts);
+        properties.setHeader(HEADER_REASON, reason + ": " + error.getMessage());
+
+        if (retryable && attempts <= RETRY_TIERS) {
+            if (!sendConfirmed(retryQueue(queue, attempts), message)) {
+                return false;
+            }
+            retried.incrementAndGet();
+            logger.debug("Message {} from {} failed ({}), retry {} of {}",
+                    properties.getMessageId(), queue, reason, attempts, RETRY_TIERS);
+        } else {
+            if (!sendConfirmed(parkingLot(queue), message)) {
+                return false;
+            }
+            parked.incrementAndGet();
+            logger.warn("Parked message {} from {} after {} attempt(s): {}",
+                    properties.getMessageId(), queue, attempts, error.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Publish through the default exchange, which routes by queue name, and wait for the confirm
+     */
+    private boolean sendConfirmed(String target, Message message) {
+        CorrelationData correlation = new CorrelationData();
+        try {
+            amqpTemplate.send("", target, message, correlation);
+            CorrelationData.Confirm confirm = correlation.getFuture().get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+            if (confirm.isAck()) {
+                return true;
+            }
+            logger.warn("Broker nacked message {} for {}: {}",
+                    message.getMessageProperties().getMessageId(), target, confirm.getReason());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while moving message {} to {}", message.getMessageProperties().getMessageId(), target);
+        } catch (Exception e) {
+            logger.warn("Could not move message {} to {}: {}",
+                    message.getMessageProperties().getMessageId(), target, e.toString());
+        }
+        return false;
+    }
+
+    public static int attemptsOf(Message message) {
+        Object attempts = message.getMessageProperties().getHeader(HEADER_ATTEMPTS);
+        return attempts instanceof Number ? ((Number) attempts).intValue() : 0;
+    }
+
+    /**
+     * @return failures seen so far, keyed by exception type
+     */
+    public Map<String, Long> getFailureCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        failures.forEach((reason, count) -> counts.put(reason, count.get()));
+        return counts;
+    }
+
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    public long getParkedCount() {
+        return parked.get();
+    }
+}
@@ -0,0 +1,198 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.event.DomainEventCodec;
+import com.visualpathit.account.model.OutboxEvent;
+import com.visualpathit.account.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Relays outbox rows to RabbitMQ in id order.
+ *
+ * Each pass claims the oldest rows in a short transaction, publishes them on one
+ * channel and waits for the broker's confirms with no transaction open, then
+ * deletes the confirmed prefix and hands the rest back in a second short
+ * transaction. Broker I/O never holds row or gap locks, so the outbox inserts of
+ * request transactions never wait on RabbitMQ.
+ *
+ * A relay does not claim while the oldest row is claimed by another, and
+ * stopping at the first unconfirmed row keeps events in order. A claim lapses
+ * after rabbitmq.outbox.claimTtlMs, so the rows of a relay that died are sent
+ * again: delivery is at-least-once, and consumers can de-duplicate on the
+ * message id, which is the event id.
+ */
+@Service
+public class OutboxRelay implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private RabbitTemplate amqpTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${rabbitmq.outbox.batchSize:200}")
+    private int batchSize = 200;
+
+    @Value("${rabbitmq.outbox.pollIntervalMs:200}")
+    private long pollIntervalMs = 200;
+
+    @Value("${rabbitmq.outbox.confirmTimeoutMs:5000}")
+    private long confirmTimeoutMs = 5000;
+
+    @Value("${rabbitmq.outbox.claimTtlMs:60000}")
+    private long claimTtlMs = 60000;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Thread relay;
+
+    private volatile boolean running;
+
+    /**
+     * Relay one batch
+     *
+     * @return the number of events confirmed and removed from the outbox
+     */
+    public int relayBatch() {
+        String token = UUID.randomUUID().toString();
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> claim(token));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> confirmed = Collections.emptyList();
+        try {
+            confirmed = publish(batch);
+        } finally {
+            List<Long> done = confirmed;
+            List<Long> unconfirmed = batch.stream().map(OutboxEvent::getId)
+                    .skip(done.size()).collect(Collectors.toList());
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!done.isEmpty()) {
+                    outboxEventRepository.deleteAllByIdInBatch(done);
+                }
+                if (!unconfirmed.isEmpty()) {
+                    outboxEventRepository.release(unconfirmed, token);
+                }
+            });
+        }
+        return confirmed.size();
+    }
+
+    /**
+     * @return the oldest events, now claimed under token, or nothing while another relay publishes the head
+     */
+    private List<OutboxEvent> claim(String token) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = outboxEventRepository.findOldestForUpdate(PageRequest.of(0, batchSize));
+        if (batch.isEmpty() || batch.get(0).isClaimedAt(now)) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = batch.stream().map(OutboxEvent::getId).collect(Collectors.toList());
+        outboxEventRepository.claim(ids, token, now.plus(Duration.ofMillis(claimTtlMs)));
+        return batch;
+    }
+
+    /**
+     * @return ids of the leading events the broker confirmed, in order
+     */
+    private List<Long> publish(List<OutboxEvent> batch) {
+        List<CorrelationData> correlations = amqpTemplate.invoke(operations -> {
+            List<CorrelationData> sent = new ArrayList<>(batch.size());
+            for (OutboxEvent event : batch) {
+                CorrelationData correlation = new CorrelationData(event.getEventId());
+                operations.send(event.getExchange(), event.getRoutingKey(), DomainEventCodec.toMessage(
+                        event.getPayload(), event.getEventId(), event.getRoutingKey(), event.getSchemaVersion(),
+                        event.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()), correlation);
+                sent.add(correlation);
+            }
+            return sent;
+        });
+
+        List<Long> confirmed = new ArrayList<>(batch.size());
+        long deadline = System.currentTimeMillis() + confirmTimeoutMs;
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                long wait = Math.max(1, deadline - System.currentTimeMillis());
+                if (!correlations.get(i).getFuture().get(wait, TimeUnit.MILLISECONDS).isAck()) {
+                    logger.warn("Broker nacked outbox event {}, will retry", batch.get(i).getEventId());
+                    break;
+                }
+            } catch (Exception e) {
+                logger.warn("No confirm for outbox event {}, will retry: {}", batch.get(i).getEventId(), e.getMessage());
+                break;
+            }
+            confirmed.add(batch.get(i).getId());
+        }
+        return confirmed;
+    }
+
+    private void relayLoop() {
+        while (running) {
+            try {
+                int relayed = relayBatch();
+                if (relayed < batchSize) {
+                    Thread.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("Outbox relay pass failed, retrying: {}", e.getMessage());
+                sleepQuietly(5000);
+            }
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Locking reads at READ COMMITTED lock the rows read, not the gaps after them
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        running = true;
+        relay = new Thread(this::relayLoop, "outbox-relay");
+        relay.setDaemon(true);
+        relay.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        relay.interrupt();
+        relay.join(5000);
+    }
+}
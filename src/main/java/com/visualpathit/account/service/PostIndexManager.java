@@ -0,0 +1,332 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.utils.ElasticsearchUtil;
+import org.apache.http.client.config.RequestConfig;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.client.indices.PutIndexTemplateRequest;
+import org.elasticsearch.cluster.metadata.AliasMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.ReindexRequest;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manages the monthly post indices (posts-yyyy.MM) and their aliases.
+ *
+ * - posts-read  : every post index, added by the index template
+ * - posts-hot   : the most recent months only, used by default for post search;
+ *                 also added by the template, so a new month is searchable as soon
+ *                 as its first post creates the index
+ *
+ * There is no write alias: PostIndexer writes each post to the index named after
+ * its creation month, so that its updates find the original document.
+ *
+ * A periodic maintenance pass creates the current month's index, takes the hot
+ * alias off indices that have left the hot window, force-merges and
+ * write-blocks them, and deletes indices past the retention period. The first
+ * pass also moves posts from the old single "posts" index into their monthly
+ * indices, and deletes it only once every document has been copied.
+ */
+@Service
+@DependsOn("elasticsearchUtil")
+public class PostIndexManager implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostIndexManager.class);
+
+    public static final String INDEX_PREFIX = "posts-";
+    public static final String READ_ALIAS = "posts-read";
+    public static final String HOT_ALIAS = "posts-hot";
+
+    private static final String TEMPLATE_NAME = "posts-monthly";
+    private static final String LEGACY_INDEX = "posts";
+    private static final String LEGACY_WRITE_ALIAS = "posts-write";
+    private static final String WRITE_BLOCK = "index.blocks.write";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy.MM");
+
+    /** Routes a legacy document to the index of its createdAt month (ISO local date-time); see indexNameFor */
+    private static final String LEGACY_ROUTING_SCRIPT =
+            "def createdAt = ctx._source.createdAt;"
+            + " if (createdAt instanceof String && createdAt.length() >= 7) {"
+            + " ctx._index = params.prefix + createdAt.substring(0, 4) + '.' + createdAt.substring(5, 7); }";
+
+    @Value("${search.posts.hotMonths:2}")
+    private int hotMonths = 2;
+
+    @Value("${search.posts.retentionMonths:24}")
+    private int retentionMonths = 24;
+
+    @Value("${search.posts.replicas:1}")
+    private int replicas = 1;
+
+    @Value("${search.posts.maintenanceIntervalMinutes:60}")
+    private long maintenanceIntervalMinutes = 60;
+
+    @Value("${search.posts.legacyMigrationTimeoutMs:600000}")
+    private int legacyMigrationTimeoutMs = 600000;
+
+    @Value("${elasticsearch.connectTimeoutMs:2000}")
+    private int connectTimeoutMs = 2000;
+
+    private volatile boolean templateInstalled = false;
+
+    private volatile boolean legacyMigrated = false;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Name of the monthly index holding posts created at the given time
+     */
+    public static String indexNameFor(LocalDateTime createdAt) {
+        YearMonth month = createdAt != null ? YearMonth.from(createdAt) : YearMonth.now();
+        return INDEX_PREFIX + MONTH_FORMAT.format(month);
+    }
+
+    /**
+     * Month covered by a post index, or null if the name is not a monthly post index
+     */
+    public static YearMonth monthOf(String indexName) {
+        if (indexName == null || !indexName.startsWith(INDEX_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(indexName.substring(INDEX_PREFIX.length()), MONTH_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Install the template, migrate the legacy index, move the hot alias and apply the retention policy
+     */
+    public void maintain() throws IOException {
+        RestHighLevelClient client = ElasticsearchUtil.getRestHighLevelClient();
+        if (client == null) {
+            return;
+        }
+        if (!templateInstalled) {
+            installTemplate(client);
+            templateInstalled = true;
+        }
+        if (!legacyMigrated) {
+            legacyMigrated = migrateLegacyIndex(client);
+        }
+
+        YearMonth current = YearMonth.now();
+        String currentIndex = INDEX_PREFIX + MONTH_FORMAT.format(current);
+        if (!client.indices().exists(new GetIndexRequest(currentIndex), RequestOptions.DEFAULT)) {
+            logger.info("Creating post index {}", currentIndex);
+            client.indices().create(new CreateIndexRequest(currentIndex), RequestOptions.DEFAULT);
+        }
+
+        Set<String> indices = new TreeSet<>(Arrays.asList(
+                client.indices().get(new GetIndexRequest(INDEX_PREFIX + "*"), RequestOptions.DEFAULT).getIndices()));
+        YearMonth oldestHot = current.minusMonths(Math.max(hotMonths, 1) - 1L);
+        YearMonth oldestKept = retentionMonths > 0 ? current.minusMonths(retentionMonths - 1L) : null;
+
+        Set<String> hot = new HashSet<>();
+        Set<String> cold = new TreeSet<>();
+        Set<String> expired = new TreeSet<>();
+        for (String index : indices) {
+            YearMonth month = monthOf(index);
+            if (month == null) {
+                continue;
+            }
+            if (oldestKept != null && month.isBefore(oldestKept)) {
+                expired.add(index);
+            } else if (month.isBefore(oldestHot)) {
+                cold.add(index);
+            } else {
+                hot.add(index);
+            }
+        }
+
+        updateAliases(client, hot);
+        for (String index : cold) {
+            freeze(client, index);
+        }
+        for (String index : expired) {
+            logger.info("Deleting post index {} past the {}-month retention", index, retentionMonths);
+            client.indices().delete(new DeleteIndexRequest(index), RequestOptions.DEFAULT);
+        }
+    }
+
+    private void installTemplate(RestHighLevelClient client) throws IOException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("id", Collections.singletonMap("type", "long"));
+        properties.put("authorId", Collections.singletonMap("type", "long"));
+        properties.put("content", Collections.singletonMap("type", "text"));
+        properties.put("authorName", Collections.singletonMap("type", "text"));
+        properties.put("createdAt", Collections.singletonMap("type", "date"));
+
+        PutIndexTemplateRequest template = new PutIndexTemplateRequest(TEMPLATE_NAME)
+                .patterns(Collections.singletonList(INDEX_PREFIX + "*"))
+                .settings(Settings.builder()
+                        .put("index.number_of_shards", 1)
+                        .put("index.number_of_replicas", replicas))
+                .mapping(Collections.singletonMap("properties", properties))
+                .alias(new Alias(READ_ALIAS))
+                .alias(new Alias(HOT_ALIAS));
+        client.indices().putTemplate(template, RequestOptions.DEFAULT);
+        logger.info("Installed index template {} for {}*", TEMPLATE_NAME, INDEX_PREFIX);
+    }
+
+    /**
+     * Posts used to live in a single "posts" index; copy them into their monthly
+     * indices, then delete it. Documents the indexer has already written to a
+     * monthly index are newer and are left alone. Any failure keeps the legacy
+     * index for the next pass.
+     *
+     * @return true once there is no legacy index left
+     */
+    private boolean migrateLegacyIndex(RestHighLevelClient client) throws IOException {
+        if (!client.indices().exists(new GetIndexRequest(LEGACY_INDEX), RequestOptions.DEFAULT)) {
+            return true;
+        }
+
+        logger.info("Moving posts from legacy index {} into monthly indices", LEGACY_INDEX);
+        ReindexRequest request = new ReindexRequest()
+                .setSourceIndices(LEGACY_INDEX)
+                .setDestIndex(indexNameFor(null))
+                .setDestOpType("create")
+                .setRefresh(true);
+        request.setConflicts("proceed");
+        request.setScript(new Script(ScriptType.INLINE, "painless", LEGACY_ROUTING_SCRIPT,
+                Collections.singletonMap("prefix", INDEX_PREFIX)));
+        // Runs for as long as the copy takes, well past the client's usual socket timeout
+        RequestOptions options = RequestOptions.DEFAULT.toBuilder()
+                .setRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(connectTimeoutMs)
+                        .setSocketTimeout(legacyMigrationTimeoutMs)
+                        .build())
+                .build();
+        BulkByScrollResponse response = client.reindex(request, options);
+
+        if (response.isTimedOut() || !response.getBulkFailures().isEmpty() || !response.getSearchFailures().isEmpty()) {
+            logger.warn("Keeping legacy index {}: moving its posts failed ({} bulk failures, {} search failures, timed out: {})",
+                    LEGACY_INDEX, response.getBulkFailures().size(), response.getSearchFailures().size(),
+                    response.isTimedOut());
+            return false;
+        }
+        logger.info("Moved {} posts from {} ({} already indexed), deleting it",
+                response.getCreated(), LEGACY_INDEX, response.getVersionConflicts());
+        client.indices().delete(new DeleteIndexRequest(LEGACY_INDEX), RequestOptions.DEFAULT);
+        return true;
+    }
+
+    /**
+     * Move the hot alias in one atomic request, touching only what changed. The
+     * template puts it on every new index, so this mostly takes it off old months.
+     * Also drops the write alias earlier versions kept on the current month, which nothing writes through.
+     */
+    private void updateAliases(RestHighLevelClient client, Set<String> hot) throws IOException {
+        GetAliasesResponse existing = client.indices().getAlias(
+                new GetAliasesRequest(LEGACY_WRITE_ALIAS, HOT_ALIAS), RequestOptions.DEFAULT);
+        Set<String> writeHolders = new HashSet<>();
+        Set<String> hotHolders = new HashSet<>();
+        for (Map.Entry<String, Set<AliasMetadata>> entry : existing.getAliases().entrySet()) {
+            for (AliasMetadata alias : entry.getValue()) {
+                if (LEGACY_WRITE_ALIAS.equals(alias.alias())) {
+                    writeHolders.add(entry.getKey());
+                } else if (HOT_ALIAS.equals(alias.alias())) {
+                    hotHolders.add(entry.getKey());
+                }
+            }
+        }
+
+        IndicesAliasesRequest request = new IndicesAliasesRequest();
+        for (String index : writeHolders) {
+            logger.info("Removing unused alias {} from {}", LEGACY_WRITE_ALIAS, index);
+            request.addAliasAction(AliasActions.remove().index(index).alias(LEGACY_WRITE_ALIAS));
+        }
+        for (String index : hotHolders) {
+            if (!hot.contains(index)) {
+                request.addAliasAction(AliasActions.remove().index(index).alias(HOT_ALIAS));
+            }
+        }
+        for (String index : hot) {
+            if (!hotHolders.contains(index)) {
+                request.addAliasAction(AliasActions.add().index(index).alias(HOT_ALIAS));
+            }
+        }
+
+        if (!request.getAliasActions().isEmpty()) {
+            client.indices().updateAliases(request, RequestOptions.DEFAULT);
+        }
+    }
+
+    /**
+     * Merge a cold index down to one segment, then block further writes.
+     * The merge comes first so that a timed-out merge is retried on the next pass.
+     */
+    private void freeze(RestHighLevelClient client, String index) throws IOException {
+        GetSettingsResponse settings = client.indices().getSettings(
+                new GetSettingsRequest().indices(index).names(WRITE_BLOCK), RequestOptions.DEFAULT);
+        if (Boolean.parseBoolean(settings.getSetting(index, WRITE_BLOCK))) {
+            return;
+        }
+        logger.info("Force-merging and write-blocking cold post index {}", index);
+        client.indices().forcemerge(new ForceMergeRequest(index).maxNumSegments(1), RequestOptions.DEFAULT);
+        client.indices().putSettings(new UpdateSettingsRequest(index)
+                .settings(Settings.builder().put(WRITE_BLOCK, true)), RequestOptions.DEFAULT);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "post-index-manager");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::maintainQuietly, 0, maintenanceIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    private void maintainQuietly() {
+        try {
+            maintain();
+        } catch (Exception e) {
+            logger.warn("Post index maintenance failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,59 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.event.PostChangedEvent;
+import com.visualpathit.account.model.Post;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the monthly Elasticsearch post indices in step with new posts.
+ *
+ * Each post is written straight to the index for the month it was created in,
+ * not through a write alias, so an update always lands next to the original
+ * document: an alias follows the current month, and an upsert through it would
+ * add a second copy of an older post there. Months that have left the hot window
+ * are write-blocked by PostIndexManager, so updates to posts from those months
+ * are rejected and dropped (see AbstractIndexer#getBlockedCount()).
+ */
+@Service
+@DependsOn("elasticsearchUtil")
+public class PostIndexer extends AbstractIndexer {
+
+    /**
+     * Build the indexed representation of a post
+     */
+    public static Map<String, Object> toDocument(Post post) {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("id", post.getId());
+        document.put("content", post.getContent());
+        document.put("authorId", post.getAuthor() != null ? post.getAuthor().getId() : null);
+        document.put("authorName", post.getAuthor() != null ? post.getAuthor().getUsername() : null);
+        document.put("createdAt", post.getCreatedAt() != null ? post.getCreatedAt().toString() : null);
+        return document;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        Post post = event.getPost();
+        if (post == null || post.getId() == null) {
+            return;
+        }
+        enqueue(post.getId(), toDocument(post));
+    }
+
+    @Override
+    protected String indexFor(Long id, Map<String, Object> document) {
+        Object createdAt = document.get("createdAt");
+        try {
+            return PostIndexManager.indexNameFor(createdAt != null ? LocalDateTime.parse(createdAt.toString()) : null);
+        } catch (DateTimeParseException e) {
+            return PostIndexManager.indexNameFor(null);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.visualpathit.account.service;
 
+import com.visualpathit.account.event.PostLikedEvent;
 import com.visualpathit.account.model.Post;
 import com.visualpathit.account.model.PostLike;
 import com.visualpathit.account.model.User;
@@ -8,6 +9,7 @@ import com.visualpathit.account.repository.PostRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,6 +27,9 @@ public class PostLikeService {
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Toggle like on a post (like if not liked, unlike if already liked)
      *
@@ -53,6 +58,7 @@ public class PostLikeService {
             post.setLikesCount((int) newCount);
             postRepository.save(post);
 
+            eventPublisher.publishEvent(new PostLikedEvent(post, user, false));
             logger.info("Post {} unliked by user {}", postId, user.getUsername());
             return false;
         } else {
@@ -66,6 +72,7 @@ public class PostLikeService {
             post.setLikesCount((int) newCount);
             postRepository.save(post);
 
+            eventPublisher.publishEvent(new PostLikedEvent(post, user, true));
             logger.info("Post {} liked by user {}", postId, user.getUsername());
             return true;
         }
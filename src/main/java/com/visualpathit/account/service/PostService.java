@@ -46,4 +46,9 @@ public interface PostService {
      * Count posts by author
      */
     long countByAuthor(User author);
+
+    /**
+     * Image URL of a post, or null if it has none or does not exist
+     */
+    String findImageUrl(Long postId);
 }
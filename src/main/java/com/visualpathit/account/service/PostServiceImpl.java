@@ -1,11 +1,13 @@
 package com.visualpathit.account.service;
 
+import com.visualpathit.account.event.PostChangedEvent;
 import com.visualpathit.account.model.Post;
 import com.visualpathit.account.model.User;
 import com.visualpathit.account.repository.PostRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -26,6 +28,9 @@ public class PostServiceImpl implements PostService {
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public List<Post> findAllPosts() {
         logger.info("Finding all posts");
@@ -63,6 +68,7 @@ public class PostServiceImpl implements PostService {
 
         Post savedPost = postRepository.save(post);
         logger.info("Post created successfully with ID: {}", savedPost.getId());
+        eventPublisher.publishEvent(new PostChangedEvent(savedPost));
 
         return savedPost;
     }
@@ -77,4 +83,10 @@ public class PostServiceImpl implements PostService {
     public long countByAuthor(User author) {
         return postRepository.countByAuthor(author);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String findImageUrl(Long postId) {
+        return postRepository.findImageUrlById(postId);
+    }
 }
@@ -1,6 +1,15 @@
 package com.visualpathit.account.service;
 
+import org.springframework.amqp.core.Message;
+
 public interface ProducerService {
 
     public String  produceMessage(String message);
+
+    /**
+     * Queue a message for publishing to the given exchange
+     *
+     * @return false if the outbound buffer stayed full and the message was refused
+     */
+    boolean publish(String exchange, String routingKey, Message message);
 }
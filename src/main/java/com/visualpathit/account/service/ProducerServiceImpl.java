@@ -1,56 +1,220 @@
 package com.visualpathit.account.service;
 
-import com.rabbitmq.client.Connection;
-import com.rabbitmq.client.ConnectionFactory;
-import com.visualpathit.account.utils.RabbitMqUtil;
-
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import com.rabbitmq.client.Channel;
 
-import java.io.IOException;
-import java.util.concurrent.TimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Publishes messages to RabbitMQ: plain strings to the "messages" fanout
+ * exchange, and arbitrary messages (e.g. domain events) to any exchange.
+ *
+ * Callers only put the message into a bounded buffer; a single publisher thread
+ * drains it and sends whatever has accumulated as one batch on one cached
+ * channel. Publisher confirms arrive asynchronously and nacked messages are put
+ * back into the buffer. If a send fails partway through a batch, only the
+ * messages not yet sent go back; those already sent are left to their confirms,
+ * which nack them if the channel closes. When the buffer is full, callers wait up to
+ * rabbitmq.publisher.offerTimeoutMs and are then refused.
+ *
+ * Exchanges are declared once in appconfig-rabbitmq.xml.
+ */
 @Service
-public class ProducerServiceImpl implements ProducerService {
+public class ProducerServiceImpl implements ProducerService, InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProducerServiceImpl.class);
 
     /**
      *  The name of the Exchange
      */
     private static final String EXCHANGE_NAME = "messages";
 
+    @Autowired
+    private RabbitTemplate amqpTemplate;
+
+    @Value("${rabbitmq.publisher.bufferSize:10000}")
+    private int bufferSize = 10000;
+
+    @Value("${rabbitmq.publisher.batchSize:100}")
+    private int batchSize = 100;
+
+    @Value("${rabbitmq.publisher.offerTimeoutMs:50}")
+    private long offerTimeoutMs = 50;
+
+    private BlockingQueue<Outbound> buffer;
+
+    private Thread publisher;
+
+    private volatile boolean running;
+
+    private final AtomicLong confirmed = new AtomicLong();
+    private final AtomicLong nacked = new AtomicLong();
+
     /**
-     *  This method publishes a message
+     *  This method queues a message for publishing
      * @param message
+     * @return "response" once queued, "rejected" if the outbound buffer stayed full
      */
     @Override
     public String produceMessage(String message) {
+        return publish(EXCHANGE_NAME, "", toMessage(message)) ? "response" : "rejected";
+    }
+
+    @Override
+    public boolean publish(String exchange, String routingKey, Message message) {
+        try {
+            if (buffer.offer(new Outbound(exchange, routingKey, message), offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.warn("Outbound message buffer is full ({} messages), rejecting message for {}", bufferSize, exchange);
+        return false;
+    }
+
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+    public long getConfirmedCount() {
+        return confirmed.get();
+    }
+
+    public long getNackedCount() {
+        return nacked.get();
+    }
+
+    private void publishLoop() {
+        List<Outbound> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                Outbound first = buffer.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                if (!publish(batch)) {
+                    pause();
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                Thread.currentThread().interrupt();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Send a batch on a single channel; confirms are handled as they arrive
+     *
+     * @return false if sending failed, in which case the messages not sent are back in the buffer
+     */
+    private boolean publish(List<Outbound> batch) {
+        int[] sent = {0};
+        try {
+            send(batch, sent);
+        } catch (RuntimeException e) {
+            // The message being sent may or may not have left; without a confirm callback it must go again
+            List<Outbound> unsent = batch.subList(sent[0], batch.size());
+            logger.warn("Publishing failed after {} of {} messages, returning {} to the buffer: {}",
+                    sent[0], batch.size(), unsent.size(), e.getMessage());
+            unsent.forEach(this::retry);
+            return false;
+        }
+        logger.debug("Published {} messages", batch.size());
+        return true;
+    }
+
+    /**
+     * @param sent counts the messages handed to the channel, each with its confirm callback
+     */
+    private void send(List<Outbound> batch, int[] sent) {
+        amqpTemplate.invoke(operations -> {
+            for (Outbound message : batch) {
+                CorrelationData correlation = new CorrelationData();
+                operations.send(message.exchange, message.routingKey, message.message, correlation);
+                sent[0]++;
+                correlation.getFuture().whenComplete((confirm, error) -> {
+                    if (error == null && confirm.isAck()) {
+                        confirmed.incrementAndGet();
+                    } else {
+                        nacked.incrementAndGet();
+                        logger.warn("Broker did not confirm message: {}",
+                                error != null ? error.getMessage() : confirm.getReason());
+                        retry(message);
+                    }
+                });
+            }
+            return null;
+        });
+    }
+
+    private void retry(Outbound message) {
+        if (!buffer.offer(message)) {
+            logger.error("Outbound message buffer is full, dropping message that could not be published");
+        }
+    }
+
+    private static Message toMessage(String message) {
+        return MessageBuilder.withBody(message.getBytes(StandardCharsets.UTF_8))
+                .setContentType(MessageProperties.CONTENT_TYPE_BYTES)
+                .build();
+    }
+
+    private static final class Outbound {
+        private final String exchange;
+        private final String routingKey;
+        private final Message message;
+
+        private Outbound(String exchange, String routingKey, Message message) {
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+            this.message = message;
+        }
+    }
+
+    private static void pause() {
         try {
-            ConnectionFactory factory = new ConnectionFactory();
-            /**
-            * System.out.println("Rabitmq host: ::" + RabbitMqUtil.getRabbitMqHost());
-            * System.out.println("Rabitmq port: ::" + RabbitMqUtil.getRabbitMqPort());
-            * System.out.println("Rabitmq user: ::" + RabbitMqUtil.getRabbitMqUser());
-            * System.out.println("Rabitmq password: ::" + RabbitMqUtil.getRabbitMqPassword());
-            **/
-            factory.setHost(RabbitMqUtil.getRabbitMqHost());
-            factory.setPort(Integer.parseInt(RabbitMqUtil.getRabbitMqPort()));
-            factory.setUsername(RabbitMqUtil.getRabbitMqUser());
-            factory.setPassword(RabbitMqUtil.getRabbitMqPassword());
-            Connection connection = factory.newConnection();
-            System.out.println("Connection open status"+connection.isOpen());
-            Channel channel = connection.createChannel();
-            channel.exchangeDeclare(EXCHANGE_NAME, "fanout");
-            channel.basicPublish(EXCHANGE_NAME, "", null, message.getBytes());
-            System.out.println(" [x] Sent '" + message + "'");
-            channel.close();
-            connection.close();
-        } catch (IOException io) {
-            System.out.println("IOException");
-            io.printStackTrace();
-        } catch (TimeoutException toe) {
-            System.out.println("TimeoutException : " + toe.getMessage());
-            toe.printStackTrace();
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        running = true;
+        publisher = new Thread(this::publishLoop, "rabbitmq-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        publisher.join(5000);
+        if (!buffer.isEmpty()) {
+            logger.warn("Shutting down with {} unpublished messages", buffer.size());
         }
-        return "response";
     }
 }
@@ -0,0 +1,183 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.model.User;
+import com.visualpathit.account.utils.ImageUtils;
+import net.coobird.thumbnailator.Thumbnails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns uploaded profile photos into square JPEG avatars off the request thread.
+ *
+ * The request only streams the raw upload to disk, hashing it on the way, and
+ * queues a job. If ProfilePhotoStore already holds a photo with that content
+ * the job just points the user at it. Otherwise a small, bounded pool decodes
+ * just its centre square, subsampled (see ImageUtils), then encodes one
+ * rendition per User.AVATAR_SIZES (the 300 px one progressive), each written
+ * to a temporary file and renamed into place, and finally points the user at
+ * the new photo with a single-row update. Until then the old photo keeps
+ * showing. Pages pick a rendition with User.avatarUrl(size). When the queue is
+ * full uploads are refused rather than piling up.
+ */
+@Service
+public class ProfilePhotoProcessor implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilePhotoProcessor.class);
+
+    /** Largest rendition; the others are scaled down from it */
+    public static final int SIZE = 300;
+
+    private static final float QUALITY = 0.85f;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ProfilePhotoStore store;
+
+    @Value("${photos.workers:2}")
+    private int workers = 2;
+
+    @Value("${photos.queueSize:100}")
+    private int queueSize = 100;
+
+    @Value("${photos.maxPixels:40000000}")
+    private long maxPixels = 40_000_000L;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Store the raw upload and queue it for processing
+     *
+     * @return false if too many photos are already waiting; nothing is kept in that case
+     * @throws IOException if the upload could not be written to disk
+     */
+    public boolean submit(Long userId, MultipartFile file) throws IOException {
+        Path incoming = Files.createDirectories(store.getIncomingDir());
+        Path raw = incoming.resolve(UUID.randomUUID() + ".upload");
+        String key;
+        try (InputStream upload = file.getInputStream()) {
+            key = store.copyAndHash(upload, raw);
+        } catch (IOException e) {
+            Files.deleteIfExists(raw);
+            throw e;
+        }
+        try {
+            executor.execute(() -> process(userId, raw, key));
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.warn("Photo queue is full ({} waiting), refusing upload for user {}", queueSize, userId);
+            Files.deleteIfExists(raw);
+            return false;
+        }
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    private void process(Long userId, Path raw, String key) {
+        long started = System.currentTimeMillis();
+        try {
+            if (store.reuse(key)) {
+                userService.updateProfilePhoto(userId, store.urlOf(key, SIZE), store.pathOf(key, SIZE).toString());
+                logger.info("Profile photo for user {} is already stored, reusing {}", userId, key);
+                return;
+            }
+            // Only the centre square, subsampled close to the target size, is ever decoded
+            BufferedImage decoded = ImageUtils.readCenteredSquare(raw, SIZE, maxPixels);
+            // RGB without alpha, which the JPEG writer needs
+            BufferedImage square = Thumbnails.of(decoded)
+                    .size(SIZE, SIZE)
+                    .imageType(BufferedImage.TYPE_INT_RGB)
+                    .asBufferedImage();
+
+            Files.createDirectories(store.pathOf(key, SIZE).getParent());
+            // Largest last: once it exists every rendition the URL can point at exists too
+            for (int rendition : User.AVATAR_SIZES) {
+                BufferedImage scaled = rendition == SIZE ? square
+                        : Thumbnails.of(square).size(rendition, rendition).asBufferedImage();
+                writeAtomically(scaled, store.pathOf(key, rendition), rendition == SIZE);
+            }
+
+            userService.updateProfilePhoto(userId, store.urlOf(key, SIZE), store.pathOf(key, SIZE).toString());
+            logger.info("Profile photo for user {} processed in {} ms", userId, System.currentTimeMillis() - started);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Refused photo upload for user {}: {}", userId, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            // Renditions already written are shared by content and left to the sweep
+            logger.error("Failed to process profile photo for user {}", userId, e);
+        } finally {
+            deleteQuietly(raw);
+        }
+    }
+
+    /**
+     * Encode to a temporary file next to the target, then rename it into place so
+     * readers never see a partly written image. Temporary names are unique, as two
+     * workers may write the same content at once.
+     *
+     * @param progressive worth it for the large rendition only; small JPEGs get bigger
+     */
+    private static void writeAtomically(BufferedImage image, Path target, boolean progressive) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            ImageUtils.writeJpeg(image, temp, QUALITY, progressive);
+            // Uploads are served by Tomcat, which may run as another user than the one that wrote them
+            Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-r--r--"));
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "photo-processor-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    // Below request threads, so a burst of uploads does not slow page rendering
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            logger.warn("Stopped with {} photos still queued", executor.getQueue().size());
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.model.User;
+import com.visualpathit.account.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed storage of processed profile photos.
+ *
+ * A photo is named after the SHA-256 of the uploaded bytes, so the same image
+ * uploaded twice, by one user or by several, is processed and stored once and
+ * users share its files. Since a name always designates the same content the
+ * files never change and can be cached by browsers for good.
+ *
+ * Files are spread over two levels of directories named after the first hex
+ * digits of their key, profiles/ab/cd/abcd...-300.jpg, so that no directory
+ * grows past a few entries per 65536 photos. Photos stored flat by earlier
+ * versions are moved into place once, in the background, after startup; until
+ * then, and for URLs saved before the move, locate() finds either layout.
+ *
+ * Nothing is deleted when a user changes photo; a photo is live for as long as
+ * some User.profileImgPath points at it. Every photos.gcIntervalMinutes the
+ * directory is swept and rendition sets no user refers to, and that were not
+ * written or reused in the last photos.gcGraceMinutes, are removed. The grace
+ * period covers photos that are on disk but whose user row is not updated yet.
+ */
+@Service
+public class ProfilePhotoStore implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilePhotoStore.class);
+
+    /** Public URL prefix of processed photos, served by StaticResourceController */
+    public static final String URL_PREFIX = "/uploads/profiles/";
+
+    /**
+     * Part of every digest; change it when the renditions change (sizes, quality)
+     * so new uploads get new names instead of reusing files made the old way
+     */
+    private static final String RENDITION_VERSION = "avatar-v1";
+
+    /** &lt;key&gt;-&lt;size&gt;.jpg, for content keys and the random ids used before them */
+    private static final Pattern RENDITION = Pattern.compile("(.+)-(\\d{1,4})\\.jpg");
+
+    private static final Pattern CONTENT_KEY = Pattern.compile("[0-9a-f]{64}");
+
+    private static final Pattern HEX_PREFIX = Pattern.compile("[0-9a-f]{4}.*");
+
+    /** Written in the profiles directory once every flat file has been moved into its shard */
+    private static final String LAYOUT_MARKER = ".sharded";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${photos.uploadDir:/var/lib/facelink/uploads}")
+    private String uploadDir = "/var/lib/facelink/uploads";
+
+    @Value("${photos.gcIntervalMinutes:60}")
+    private long gcIntervalMinutes = 60;
+
+    @Value("${photos.gcGraceMinutes:60}")
+    private long gcGraceMinutes = 60;
+
+    private ScheduledExecutorService scheduler;
+    private TransactionTemplate transactionTemplate;
+
+    public Path getProfilesDir() {
+        return Paths.get(uploadDir, "profiles");
+    }
+
+    public Path getIncomingDir() {
+        return Paths.get(uploadDir, "incoming");
+    }
+
+    /**
+     * Copy an upload to target, computing its content key on the way
+     *
+     * @return the content key, a lowercase hex SHA-256
+     */
+    public String copyAndHash(InputStream upload, Path target) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(RENDITION_VERSION.getBytes(StandardCharsets.US_ASCII));
+        try (DigestInputStream in = new DigestInputStream(upload, digest)) {
+            Files.copy(in, target);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public Path pathOf(String key, int size) {
+        return shardDir(key).resolve(renditionName(key, size));
+    }
+
+    public String urlOf(String key, int size) {
+        return URL_PREFIX + shard(key) + "/" + renditionName(key, size);
+    }
+
+    /**
+     * Where a stored file is, whichever layout it is in; a single lookup once migrated
+     *
+     * @param fileName a file name without directories, as in the last segment of its URL
+     */
+    public Path locate(String fileName) {
+        Path sharded = shardDir(keyOf(fileName)).resolve(fileName);
+        if (Files.exists(sharded)) {
+            return sharded;
+        }
+        return getProfilesDir().resolve(fileName);
+    }
+
+    /**
+     * @return "ab/cd", the directories a file with that key is stored in
+     */
+    public static String shard(String key) {
+        // Content keys and the random ids used before them already start with evenly spread hex digits
+        String spread = HEX_PREFIX.matcher(key).matches() ? key
+                : HexFormat.of().formatHex(newDigest().digest(key.getBytes(StandardCharsets.UTF_8)));
+        return spread.substring(0, 2) + "/" + spread.substring(2, 4);
+    }
+
+    private Path shardDir(String key) {
+        return getProfilesDir().resolve(shard(key));
+    }
+
+    /**
+     * Renditions of one photo share their key, and so their directory; other files are their own key
+     */
+    private static String keyOf(String fileName) {
+        Matcher matcher = RENDITION.matcher(fileName);
+        return matcher.matches() ? matcher.group(1) : fileName;
+    }
+
+    /**
+     * File name of one rendition; the largest one ends with User.AVATAR_SUFFIX
+     */
+    public static String renditionName(String key, int size) {
+        return key + "-" + size + ".jpg";
+    }
+
+    /**
+     * @return true if the file name is that of a content-addressed rendition, whose content never changes
+     */
+    public static boolean isImmutable(String fileName) {
+        Matcher matcher = RENDITION.matcher(fileName);
+        return matcher.matches() && CONTENT_KEY.matcher(matcher.group(1)).matches();
+    }
+
+    /**
+     * Claim the renditions of an already stored photo, restarting their grace period
+     * so a sweep running meanwhile leaves them alone
+     *
+     * @return false if the photo is not fully stored and has to be processed
+     */
+    public boolean reuse(String key) {
+        // The largest rendition is written last, so if it is there all of them are
+        if (!Files.exists(pathOf(key, ProfilePhotoProcessor.SIZE))) {
+            return false;
+        }
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+        try {
+            for (int size : User.AVATAR_SIZES) {
+                Files.setLastModifiedTime(pathOf(key, size), now);
+            }
+            return true;
+        } catch (IOException e) {
+            // Removed by a sweep between the check and now: process it again
+            return false;
+        }
+    }
+
+    /**
+     * Move files stored flat in the profiles directory into their shard and point users at the new
+     * place. Runs once; interrupted runs resume where they stopped.
+     *
+     * @return the number of files moved
+     */
+    public int migrateFlatLayout() throws IOException {
+        Path profiles = getProfilesDir();
+        if (!Files.isDirectory(profiles) || Files.exists(profiles.resolve(LAYOUT_MARKER))) {
+            return 0;
+        }
+        int moved = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(profiles, Files::isRegularFile)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(".") || name.endsWith(".tmp")) {
+                    continue;
+                }
+                String key = keyOf(name);
+                Path target = Files.createDirectories(shardDir(key)).resolve(name);
+                // Same content under the same name, so a copy left by an interrupted run can be replaced
+                Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                moved++;
+                // Flat URLs keep working through locate(), but new page loads need not try both places
+                String url = URL_PREFIX + shard(key) + "/" + name;
+                transactionTemplate.executeWithoutResult(status ->
+                        userRepository.relocateProfileImg(file.toString(), target.toString(), url));
+            }
+        }
+        Files.createFile(profiles.resolve(LAYOUT_MARKER));
+        logger.info("Moved {} profile photo files into the sharded layout", moved);
+        return moved;
+    }
+
+    /**
+     * Delete rendition sets no user refers to and leftover temporary files
+     *
+     * @return the number of files deleted
+     */
+    public int collectGarbage() throws IOException {
+        Path profiles = getProfilesDir();
+        if (!Files.isDirectory(profiles)) {
+            return 0;
+        }
+        Set<String> referenced = new HashSet<>();
+        for (String path : userRepository.findProfileImgPaths()) {
+            referenced.add(Paths.get(path).getFileName().toString());
+        }
+
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(gcGraceMinutes);
+        Map<String, List<Path>> unreferenced = new HashMap<>();
+        int deleted = 0;
+        // Shards and, until migrated, the flat directory itself
+        try (Stream<Path> files = Files.walk(profiles, 3)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(".") || Files.getLastModifiedTime(file).toMillis() > cutoff) {
+                    continue;
+                }
+                if (name.endsWith(".tmp")) {
+                    deleted += Files.deleteIfExists(file) ? 1 : 0;
+                    continue;
+                }
+                Matcher matcher = RENDITION.matcher(name);
+                // Anything else predates renditions and is left alone
+                if (matcher.matches() && isAvatarSize(Integer.parseInt(matcher.group(2)))
+                        && !referenced.contains(renditionName(matcher.group(1), ProfilePhotoProcessor.SIZE))) {
+                    unreferenced.computeIfAbsent(matcher.group(1), key -> new ArrayList<>()).add(file);
+                }
+            }
+        }
+
+        for (Map.Entry<String, List<Path>> set : unreferenced.entrySet()) {
+            Path primary = pathOf(set.getKey(), ProfilePhotoProcessor.SIZE);
+            // Checked again, one by one, in case a user switched to it since the scan
+            if (isRecent(primary, cutoff) || userRepository.countByProfileImgPath(primary.toString()) > 0) {
+                continue;
+            }
+            // Largest first, so a set is never left looking complete while missing a smaller size
+            List<Path> files = set.getValue();
+            files.sort(Comparator.comparing(ProfilePhotoStore::sizeOf).reversed());
+            for (Path file : files) {
+                deleted += Files.deleteIfExists(file) ? 1 : 0;
+            }
+        }
+        if (deleted > 0) {
+            logger.info("Removed {} unreferenced profile photo files", deleted);
+        }
+        return deleted;
+    }
+
+    private static int sizeOf(Path rendition) {
+        Matcher matcher = RENDITION.matcher(rendition.getFileName().toString());
+        return matcher.matches() ? Integer.parseInt(matcher.group(2)) : 0;
+    }
+
+    private static boolean isAvatarSize(int size) {
+        for (int avatarSize : User.AVATAR_SIZES) {
+            if (avatarSize == size) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRecent(Path file, long cutoff) throws IOException {
+        return Files.exists(file) && Files.getLastModifiedTime(file).toMillis() > cutoff;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "photo-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Same thread as the sweep, so the two never walk the directory at once
+        scheduler.execute(() -> {
+            try {
+                migrateFlatLayout();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Profile photo layout migration failed, retried on next start: {}", e.getMessage());
+            }
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                collectGarbage();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Profile photo sweep failed: {}", e.getMessage());
+            }
+        }, gcIntervalMinutes, gcIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,77 @@
+package com.visualpathit.account.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of full-text search results.
+ * The cursor is opaque to callers: pass it back as "after" to fetch the next page.
+ */
+public class SearchResults {
+
+    private final List<Hit> hits = new ArrayList<>();
+    private long total;
+    private String nextCursor;
+
+    public List<Hit> getHits() {
+        return hits;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * A single matching user or post
+     */
+    public static class Hit {
+
+        private final String type;
+        private final String id;
+        private final float score;
+        private final Map<String, Object> source;
+        private final Map<String, List<String>> highlights;
+
+        public Hit(String type, String id, float score, Map<String, Object> source,
+                   Map<String, List<String>> highlights) {
+            this.type = type;
+            this.id = id;
+            this.score = score;
+            this.source = source;
+            this.highlights = highlights;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public float getScore() {
+            return score;
+        }
+
+        public Map<String, Object> getSource() {
+            return source;
+        }
+
+        public Map<String, List<String>> getHighlights() {
+            return highlights;
+        }
+    }
+}
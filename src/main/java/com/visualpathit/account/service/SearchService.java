@@ -0,0 +1,44 @@
+package com.visualpathit.account.service;
+
+import java.io.IOException;
+
+/**
+ * Full-text search over users and posts
+ */
+public interface SearchService {
+
+    /** Search users only */
+    String TYPE_USERS = "users";
+
+    /** Search posts only */
+    String TYPE_POSTS = "posts";
+
+    /** Search users and posts together */
+    String TYPE_ALL = "all";
+
+    /** Use Elasticsearch, falling back to the embedded index while its circuit is open */
+    String MODE_AUTO = "auto";
+
+    /** Use Elasticsearch only */
+    String MODE_ELASTICSEARCH = "elasticsearch";
+
+    /** Use the embedded index only, for single-node deployments without Elasticsearch */
+    String MODE_LOCAL = "local";
+
+    /** Search posts from the recent (hot) months only */
+    String SCOPE_RECENT = "recent";
+
+    /** Search posts across every retained month */
+    String SCOPE_ALL = "all";
+
+    /**
+     * Run a multi-field text search.
+     *
+     * @param query the user-supplied text
+     * @param type one of {@link #TYPE_USERS}, {@link #TYPE_POSTS} or {@link #TYPE_ALL}
+     * @param scope {@link #SCOPE_RECENT} or {@link #SCOPE_ALL}; only affects posts
+     * @param after cursor returned by the previous page, or null for the first page
+     * @param size page size
+     */
+    SearchResults search(String query, String type, String scope, String after, int size) throws IOException;
+}
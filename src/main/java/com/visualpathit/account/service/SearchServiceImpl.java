@@ -0,0 +1,235 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.utils.CircuitBreaker;
+import com.visualpathit.account.utils.ElasticsearchUtil;
+import com.visualpathit.account.utils.ExpiringCache;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
+import org.elasticsearch.search.fetch.subphase.highlight.HighlightField;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Elasticsearch-backed implementation of SearchService.
+ *
+ * Results are sorted by score with the index name and numeric id as tie-breakers,
+ * which gives every hit a unique sort key and makes search_after pagination stable.
+ * Post searches go to the hot alias (recent months) unless every month is asked for.
+ * Identical queries within a few seconds are answered from a local cache.
+ *
+ * Depending on search.mode, queries go to Elasticsearch, to the embedded
+ * LocalSearchIndex, or to Elasticsearch with the embedded index taking over
+ * while the Elasticsearch circuit breaker is open.
+ */
+@Service
+public class SearchServiceImpl implements SearchService, InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchServiceImpl.class);
+
+    static final String[] USER_FIELDS = {
+            "name^3", "fatherName", "motherName", "nationality",
+            "primaryOccupation", "secondaryOccupation", "skills", "language"
+    };
+    static final String[] POST_FIELDS = {"content^2", "authorName"};
+    static final String[] HIGHLIGHT_FIELDS = {
+            "name", "primaryOccupation", "secondaryOccupation", "skills", "content"
+    };
+
+    public static final int MAX_PAGE_SIZE = 50;
+
+    @Value("${search.cache.ttlMs:5000}")
+    private long cacheTtlMs = 5000;
+
+    @Value("${search.cache.maxEntries:1000}")
+    private int cacheMaxEntries = 1000;
+
+    @Value("${search.timeoutMs:2000}")
+    private long searchTimeoutMs = 2000;
+
+    @Value("${search.mode:auto}")
+    private String mode = MODE_AUTO;
+
+    @Autowired
+    private LocalSearchIndex localSearchIndex;
+
+    private ExpiringCache<String, SearchResults> cache;
+
+    @Override
+    public void afterPropertiesSet() {
+        cache = new ExpiringCache<>(cacheTtlMs, cacheMaxEntries);
+    }
+
+    @Override
+    public SearchResults search(String query, String type, String scope, String after, int size) throws IOException {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String cacheKey = type + '\u0000' + scope + '\u0000' + query + '\u0000' + after + '\u0000' + pageSize;
+        SearchResults cached = cache.get(cacheKey);
+        if (cached != null) {
+            logger.debug("Search cache hit for '{}'", query);
+            return cached;
+        }
+
+        SearchResults results = MODE_LOCAL.equals(mode)
+                ? localSearchIndex.search(query, type, after, pageSize)
+                : searchWithFallback(query, type, scope, after, pageSize);
+        cache.put(cacheKey, results);
+        return results;
+    }
+
+    private SearchResults searchWithFallback(String query, String type, String scope, String after, int pageSize)
+            throws IOException {
+        // Built first so that a bad cursor is rejected without spending a breaker trial
+        SearchRequest request = buildRequest(query, type, scope, after, pageSize);
+        boolean canFallBack = MODE_AUTO.equals(mode) && localSearchIndex.isReady();
+        CircuitBreaker breaker = ElasticsearchUtil.getCircuitBreaker();
+        if (canFallBack && !breaker.allowRequest()) {
+            return localSearchIndex.search(query, type, after, pageSize);
+        }
+
+        try {
+            RestHighLevelClient client = ElasticsearchUtil.getRestHighLevelClient();
+            if (client == null) {
+                throw new IOException("Elasticsearch client is not available");
+            }
+            SearchResults results = toResults(client.search(request, RequestOptions.DEFAULT), pageSize);
+            breaker.recordSuccess();
+            return results;
+        } catch (IOException | RuntimeException e) {
+            // Any failure, or a half-open trial would never end and the breaker would stay shut
+            breaker.recordFailure();
+            if (!canFallBack) {
+                throw e;
+            }
+            logger.warn("Elasticsearch search failed, answering from the local index: {}", e.getMessage());
+            return localSearchIndex.search(query, type, after, pageSize);
+        }
+    }
+
+    SearchRequest buildRequest(String query, String type, String scope, String after, int pageSize) {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.multiMatchQuery(query, fieldsFor(type)))
+                .size(pageSize)
+                .timeout(TimeValue.timeValueMillis(searchTimeoutMs))
+                .trackTotalHits(true)
+                .sort(SortBuilders.scoreSort().order(SortOrder.DESC))
+                .sort(SortBuilders.fieldSort("_index").order(SortOrder.ASC))
+                .sort(SortBuilders.fieldSort("id").order(SortOrder.ASC).unmappedType("long"));
+
+        HighlightBuilder highlight = new HighlightBuilder().requireFieldMatch(false);
+        for (String field : HIGHLIGHT_FIELDS) {
+            highlight.field(field);
+        }
+        source.highlighter(highlight);
+
+        if (after != null && !after.isEmpty()) {
+            source.searchAfter(decodeCursor(after));
+        }
+
+        return new SearchRequest(indicesFor(type, scope))
+                .source(source)
+                .indicesOptions(IndicesOptions.lenientExpandOpen());
+    }
+
+    private SearchResults toResults(SearchResponse response, int pageSize) {
+        SearchResults results = new SearchResults();
+        results.setTotal(response.getHits().getTotalHits() != null ? response.getHits().getTotalHits().value : 0);
+
+        SearchHit last = null;
+        for (SearchHit hit : response.getHits().getHits()) {
+            Map<String, List<String>> highlights = new LinkedHashMap<>();
+            for (Map.Entry<String, HighlightField> entry : hit.getHighlightFields().entrySet()) {
+                List<String> fragments = new ArrayList<>();
+                for (Text fragment : entry.getValue().getFragments()) {
+                    fragments.add(fragment.string());
+                }
+                highlights.put(entry.getKey(), fragments);
+            }
+            results.getHits().add(new SearchResults.Hit(typeOf(hit.getIndex()), hit.getId(), hit.getScore(),
+                    hit.getSourceAsMap(), highlights));
+            last = hit;
+        }
+
+        if (last != null && response.getHits().getHits().length == pageSize) {
+            results.setNextCursor(encodeCursor(last.getSortValues()));
+        }
+        return results;
+    }
+
+    private static String[] fieldsFor(String type) {
+        if (TYPE_USERS.equals(type)) {
+            return USER_FIELDS;
+        }
+        if (TYPE_POSTS.equals(type)) {
+            return POST_FIELDS;
+        }
+        String[] all = new String[USER_FIELDS.length + POST_FIELDS.length];
+        System.arraycopy(USER_FIELDS, 0, all, 0, USER_FIELDS.length);
+        System.arraycopy(POST_FIELDS, 0, all, USER_FIELDS.length, POST_FIELDS.length);
+        return all;
+    }
+
+    static String[] indicesFor(String type, String scope) {
+        String posts = SCOPE_ALL.equals(scope) ? PostIndexManager.READ_ALIAS : PostIndexManager.HOT_ALIAS;
+        if (TYPE_USERS.equals(type)) {
+            return new String[]{UserIndexer.USERS_INDEX};
+        }
+        if (TYPE_POSTS.equals(type)) {
+            return new String[]{posts};
+        }
+        return new String[]{UserIndexer.USERS_INDEX, posts};
+    }
+
+    static String typeOf(String index) {
+        return index != null && (index.equals(TYPE_POSTS) || index.startsWith(PostIndexManager.INDEX_PREFIX))
+                ? TYPE_POSTS : TYPE_USERS;
+    }
+
+    /**
+     * Encode the sort values of the last hit (score, index, id) as an opaque cursor
+     */
+    public static String encodeCursor(Object[] sortValues) {
+        String raw = sortValues[0] + "\n" + sortValues[1] + "\n" + sortValues[2];
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor produced by {@link #encodeCursor(Object[])}
+     *
+     * @throws InvalidCursorException if the cursor is malformed
+     */
+    public static Object[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\n", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("expected 3 parts, got " + parts.length);
+            }
+            return new Object[]{Float.parseFloat(parts[0]), parts[1], Long.parseLong(parts[2])};
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid search cursor", e);
+        }
+    }
+}
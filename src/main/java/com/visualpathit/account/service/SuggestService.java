@@ -0,0 +1,16 @@
+package com.visualpathit.account.service;
+
+import java.util.List;
+
+/**
+ * Username autocomplete
+ */
+public interface SuggestService {
+
+    /**
+     * @param prefix what the user has typed so far
+     * @param limit maximum number of suggestions
+     * @return matching usernames, best first; empty if none or if no tier could answer
+     */
+    List<String> suggest(String prefix, int limit);
+}
@@ -0,0 +1,164 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.event.DomainEvent;
+import com.visualpathit.account.event.DomainEventCodec;
+import com.visualpathit.account.event.UserChangedEvent;
+import com.visualpathit.account.repository.UserRepository;
+import com.visualpathit.account.utils.ElasticsearchUtil;
+import com.visualpathit.account.utils.PrefixIndex;
+import org.apache.http.client.config.RequestConfig;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.Exchange;
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.QueueBinding;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-tier username autocomplete.
+ *
+ * The first tier is an in-memory prefix index over every username, loaded once in
+ * the background and extended on each registration, so a keystroke never reaches
+ * MySQL. Until that load has completed, requests fall back to the edge n-gram
+ * "name.autocomplete" field in Elasticsearch under a tight timeout.
+ *
+ * Registrations on this node are added as soon as they commit. Every node also
+ * receives the user.registered domain event on a queue of its own, so names
+ * registered on other nodes are added too; adding a name twice is a no-op.
+ */
+@Service
+public class SuggestServiceImpl implements SuggestService, InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestServiceImpl.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${search.suggest.timeoutMs:150}")
+    private int timeoutMs = 150;
+
+    @Value("${search.suggest.reloadRetrySeconds:30}")
+    private long reloadRetrySeconds = 30;
+
+    private final PrefixIndex usernames = new PrefixIndex();
+
+    private volatile boolean loaded = false;
+
+    private ScheduledExecutorService loader;
+
+    @Override
+    public List<String> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        String trimmed = prefix.trim();
+        if (loaded) {
+            return usernames.find(trimmed, limit);
+        }
+        return suggestFromElasticsearch(trimmed, limit);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.isCreated() && event.getUser() != null) {
+            usernames.add(event.getUser().getUsername());
+        }
+    }
+
+    @RabbitListener(bindings = @QueueBinding(value = @Queue(),
+            exchange = @Exchange(value = DomainEventCodec.EXCHANGE, type = ExchangeTypes.TOPIC),
+            key = "user.registered"))
+    public void onUserRegistered(Message message) {
+        DomainEvent event;
+        try {
+            event = DomainEventCodec.decode(message);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring unreadable registration event: {}", e.getMessage());
+            return;
+        }
+        Object username = event.getData() != null ? event.getData().get("username") : null;
+        if (username != null) {
+            usernames.add(username.toString());
+        }
+    }
+
+    private List<String> suggestFromElasticsearch(String prefix, int limit) {
+        RestHighLevelClient client = ElasticsearchUtil.getRestHighLevelClient();
+        if (client == null) {
+            return Collections.emptyList();
+        }
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.matchQuery(UserIndexer.NAME_AUTOCOMPLETE, prefix))
+                .fetchSource("name", null)
+                .size(limit)
+                .timeout(TimeValue.timeValueMillis(timeoutMs));
+        RequestOptions options = RequestOptions.DEFAULT.toBuilder()
+                .setRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(timeoutMs)
+                        .setSocketTimeout(timeoutMs)
+                        .setConnectionRequestTimeout(timeoutMs)
+                        .build())
+                .build();
+        try {
+            List<String> names = new ArrayList<>();
+            for (SearchHit hit : client.search(new SearchRequest(UserIndexer.USERS_INDEX).source(source), options).getHits()) {
+                Object name = hit.getSourceAsMap().get("name");
+                if (name != null) {
+                    names.add(name.toString());
+                }
+            }
+            return names;
+        } catch (Exception e) {
+            logger.debug("Elasticsearch suggest for '{}' failed: {}", prefix, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private void load() {
+        try {
+            usernames.addAll(userRepository.findAllUsernames());
+            loaded = true;
+            logger.info("Loaded {} usernames for autocomplete", usernames.size());
+            loader.shutdown();
+        } catch (RuntimeException e) {
+            logger.warn("Could not load usernames for autocomplete, retrying in {}s: {}", reloadRetrySeconds, e.getMessage());
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        loader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "username-suggest-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loader.scheduleWithFixedDelay(this::load, 0, reloadRetrySeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        loader.shutdownNow();
+    }
+}
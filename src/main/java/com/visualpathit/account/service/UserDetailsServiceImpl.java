@@ -1,9 +1,13 @@
 package com.visualpathit.account.service;
 
+import com.visualpathit.account.event.UserChangedEvent;
 import com.visualpathit.account.model.Role;
 import com.visualpathit.account.model.User;
 import com.visualpathit.account.repository.UserRepository;
+import com.visualpathit.account.utils.ExpiringCache;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,20 +15,54 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.HashSet;
 import java.util.Set;
 
 /** {@author imrant} !*/
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, InitializingBean {
+    /** Name of the user details cache on the CacheInvalidationBus !*/
+    public static final String USERS_CACHE = "users";
+
     @Autowired
     /** userRepository !*/
     private UserRepository userRepository;
+    @Autowired
+    /** invalidationBus !*/
+    private CacheInvalidationBus invalidationBus;
+
+    @Value("${cache.users.ttlMs:60000}")
+    private long cacheTtlMs = 60000;
+
+    @Value("${cache.users.maxEntries:10000}")
+    private int cacheMaxEntries = 10000;
+
+    /** Credentials and roles by username; evicted on every node when a user changes !*/
+    private ExpiringCache<String, UserDetails> cache;
+
+    @Override
+    public void afterPropertiesSet() {
+        cache = new ExpiringCache<>(cacheTtlMs, cacheMaxEntries);
+        invalidationBus.register(USERS_CACHE, cache);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(final UserChangedEvent event) {
+        if (event.getUser() != null && event.getUser().getUsername() != null) {
+            invalidationBus.invalidate(USERS_CACHE, event.getUser().getUsername());
+        }
+    }
 
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(final String username) throws UsernameNotFoundException {
+        UserDetails cached = cache.get(username);
+        if (cached != null) {
+            return copyOf(cached);
+        }
+
         User user = userRepository.findByUsername(username);
 
         if (user == null) {
@@ -36,6 +74,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             grantedAuthorities.add(new SimpleGrantedAuthority(role.getName()));
         }
 
-        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), grantedAuthorities);
+        UserDetails details = new org.springframework.security.core.userdetails.User(
+                user.getUsername(), user.getPassword(), grantedAuthorities);
+        cache.put(username, details);
+        return copyOf(details);
+    }
+
+    /** The authentication manager erases the password of the instance it is given, so never hand out the cached one !*/
+    private static UserDetails copyOf(final UserDetails details) {
+        return new org.springframework.security.core.userdetails.User(
+                details.getUsername(), details.getPassword(), details.getAuthorities());
     }
 }
@@ -0,0 +1,242 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.event.UserChangedEvent;
+import com.visualpathit.account.model.User;
+import com.visualpathit.account.repository.UserRepository;
+import com.visualpathit.account.utils.ElasticsearchUtil;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rebuilds the users index from MySQL without disturbing live searches.
+ *
+ * A new users-v&lt;timestamp&gt; index is created with refresh and replicas turned
+ * off, filled from parallel id-range slices, then brought back to normal settings
+ * and swapped in behind the "users" alias in a single atomic alias update. The
+ * previous index is deleted afterwards. Profile changes made during the build
+ * are replayed through the UserIndexer once the new index is live.
+ */
+@Service
+@DependsOn("elasticsearchUtil")
+public class UserIndexManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserIndexManager.class);
+
+    public static final String VERSION_PREFIX = UserIndexer.USERS_INDEX + "-v";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIndexer userIndexer;
+
+    @Value("${search.users.reindexSlices:4}")
+    private int slices = 4;
+
+    @Value("${search.users.reindexBatchSize:1000}")
+    private int batchSize = 1000;
+
+    @Value("${search.users.replicas:1}")
+    private int replicas = 1;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /** Users changed while a rebuild is in progress; replayed after the swap */
+    private final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (running.get() && event.getUser() != null && event.getUser().getId() != null) {
+            changedDuringBuild.add(event.getUser().getId());
+        }
+    }
+
+    /**
+     * Build a fresh users index and swap it in
+     *
+     * @return the name of the new index
+     * @throws IllegalStateException if a rebuild is already running
+     */
+    public String reindex() throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A users reindex is already running");
+        }
+        changedDuringBuild.clear();
+        try {
+            RestHighLevelClient client = ElasticsearchUtil.getRestHighLevelClient();
+            if (client == null) {
+                throw new IOException("Elasticsearch client is not available");
+            }
+
+            String newIndex = VERSION_PREFIX + System.currentTimeMillis();
+            createBuildIndex(client, newIndex);
+            long indexed;
+            try {
+                indexed = load(client, newIndex);
+                client.indices().putSettings(new UpdateSettingsRequest(newIndex).settings(Settings.builder()
+                        .putNull("index.refresh_interval")
+                        .put("index.number_of_replicas", replicas)), RequestOptions.DEFAULT);
+                client.indices().refresh(new RefreshRequest(newIndex), RequestOptions.DEFAULT);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Users reindex into {} failed, dropping the partial index", newIndex);
+                client.indices().delete(new DeleteIndexRequest(newIndex), RequestOptions.DEFAULT);
+                throw e;
+            }
+
+            List<String> previous = swapAlias(client, newIndex);
+            for (String index : previous) {
+                client.indices().delete(new DeleteIndexRequest(index), RequestOptions.DEFAULT);
+            }
+            logger.info("Users reindex complete: {} documents in {}, replaced {}", indexed, newIndex, previous);
+            return newIndex;
+        } finally {
+            running.set(false);
+            replayChanges();
+        }
+    }
+
+    private void createBuildIndex(RestHighLevelClient client, String index) throws IOException {
+        CreateIndexRequest request = new CreateIndexRequest(index)
+                .settings(Settings.builder()
+                        .put("index.number_of_shards", 1)
+                        .put("index.number_of_replicas", 0)
+                        .put("index.refresh_interval", "-1")
+                        .put(UserIndexer.analysis()))
+                .mapping(UserIndexer.mapping());
+        client.indices().create(request, RequestOptions.DEFAULT);
+    }
+
+    /**
+     * Load every user into the index, one worker per id-range slice
+     */
+    private long load(RestHighLevelClient client, String index) throws IOException {
+        Long minId = userRepository.findMinId();
+        Long maxId = userRepository.findMaxId();
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+
+        int sliceCount = Math.max(1, slices);
+        long span = (maxId - minId) / sliceCount + 1;
+        ExecutorService workers = Executors.newFixedThreadPool(sliceCount);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < sliceCount; i++) {
+                long after = minId - 1 + i * span;
+                long upTo = Math.min(maxId, after + span);
+                if (after >= maxId) {
+                    break;
+                }
+                results.add(workers.submit(() -> loadSlice(client, index, after, upTo)));
+            }
+            long total = 0;
+            for (Future<Long> result : results) {
+                total += result.get();
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Users reindex interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Users reindex slice failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private long loadSlice(RestHighLevelClient client, String index, long after, long upTo) throws IOException {
+        long count = 0;
+        long cursor = after;
+        while (true) {
+            List<User> users = userRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(
+                    cursor, upTo, PageRequest.of(0, batchSize));
+            if (users.isEmpty()) {
+                return count;
+            }
+            BulkRequest bulk = new BulkRequest();
+            for (User user : users) {
+                bulk.add(new IndexRequest(index).id(String.valueOf(user.getId())).source(UserIndexer.toDocument(user)));
+            }
+            BulkResponse response = client.bulk(bulk, RequestOptions.DEFAULT);
+            if (response.hasFailures()) {
+                throw new IOException("Bulk load into " + index + " failed: " + response.buildFailureMessage());
+            }
+            count += users.size();
+            cursor = users.get(users.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Point "users" at the new index and away from everything else in one request.
+     * An old concrete index called "users" (from before aliases) is removed in the
+     * same request, since an alias cannot share its name with an index.
+     *
+     * @return indices that were live before the swap
+     */
+    private List<String> swapAlias(RestHighLevelClient client, String newIndex) throws IOException {
+        IndicesAliasesRequest request = new IndicesAliasesRequest();
+        List<String> previous = new ArrayList<>();
+
+        boolean aliasExists = client.indices().existsAlias(
+                new GetAliasesRequest(UserIndexer.USERS_INDEX), RequestOptions.DEFAULT);
+        if (aliasExists) {
+            previous.addAll(client.indices().getAlias(
+                    new GetAliasesRequest(UserIndexer.USERS_INDEX), RequestOptions.DEFAULT).getAliases().keySet());
+            for (String index : previous) {
+                request.addAliasAction(AliasActions.remove().index(index).alias(UserIndexer.USERS_INDEX));
+            }
+        } else if (client.indices().exists(new GetIndexRequest(UserIndexer.USERS_INDEX), RequestOptions.DEFAULT)) {
+            request.addAliasAction(AliasActions.removeIndex().index(UserIndexer.USERS_INDEX));
+        }
+        request.addAliasAction(AliasActions.add().index(newIndex).alias(UserIndexer.USERS_INDEX));
+
+        client.indices().updateAliases(request, RequestOptions.DEFAULT);
+        return previous;
+    }
+
+    /**
+     * Re-send users that changed mid-build; their updates may only have reached the old index
+     */
+    private void replayChanges() {
+        List<Long> ids = new ArrayList<>(changedDuringBuild);
+        changedDuringBuild.clear();
+        for (User user : userRepository.findAllById(ids)) {
+            userIndexer.enqueue(user.getId(), UserIndexer.toDocument(user));
+        }
+    }
+}
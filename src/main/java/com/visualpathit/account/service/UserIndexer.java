@@ -0,0 +1,112 @@
+package com.visualpathit.account.service;
+
+import com.visualpathit.account.event.UserChangedEvent;
+import com.visualpathit.account.model.User;
+import org.elasticsearch.common.settings.Settings;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the Elasticsearch "users" index in step with profile changes.
+ *
+ * "users" is an alias over a versioned index built by UserIndexManager; writes
+ * through the alias go to whichever version is currently live.
+ */
+@Service
+@DependsOn("elasticsearchUtil")
+public class UserIndexer extends AbstractIndexer {
+
+    public static final String USERS_INDEX = "users";
+
+    /** Sub-field of "name" analysed into edge n-grams for autocomplete */
+    public static final String NAME_AUTOCOMPLETE = "name.autocomplete";
+
+    /**
+     * Analysis settings for versioned user indices
+     */
+    public static Settings analysis() {
+        return Settings.builder()
+                .put("index.analysis.tokenizer.autocomplete_edge.type", "edge_ngram")
+                .put("index.analysis.tokenizer.autocomplete_edge.min_gram", 1)
+                .put("index.analysis.tokenizer.autocomplete_edge.max_gram", 20)
+                .putList("index.analysis.tokenizer.autocomplete_edge.token_chars", "letter", "digit")
+                .put("index.analysis.analyzer.autocomplete.type", "custom")
+                .put("index.analysis.analyzer.autocomplete.tokenizer", "autocomplete_edge")
+                .putList("index.analysis.analyzer.autocomplete.filter", "lowercase")
+                // The typed prefix is matched whole against the indexed grams
+                .put("index.analysis.analyzer.autocomplete_search.type", "custom")
+                .put("index.analysis.analyzer.autocomplete_search.tokenizer", "keyword")
+                .putList("index.analysis.analyzer.autocomplete_search.filter", "lowercase")
+                .build();
+    }
+
+    /**
+     * Field mapping for versioned user indices; change it here and run a reindex
+     */
+    public static Map<String, Object> mapping() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("id", field("long"));
+        Map<String, Object> autocomplete = new LinkedHashMap<>();
+        autocomplete.put("type", "text");
+        autocomplete.put("analyzer", "autocomplete");
+        autocomplete.put("search_analyzer", "autocomplete_search");
+        Map<String, Object> name = new LinkedHashMap<>();
+        name.put("type", "text");
+        name.put("fields", Collections.singletonMap("autocomplete", autocomplete));
+        properties.put("name", name);
+        properties.put("DOB", field("keyword"));
+        properties.put("fatherName", field("text"));
+        properties.put("motherName", field("text"));
+        properties.put("gender", field("keyword"));
+        properties.put("nationality", field("text"));
+        properties.put("phoneNumber", field("keyword"));
+        properties.put("primaryOccupation", field("text"));
+        properties.put("secondaryOccupation", field("text"));
+        properties.put("skills", field("text"));
+        properties.put("language", field("text"));
+        return Collections.singletonMap("properties", properties);
+    }
+
+    private static Map<String, Object> field(String type) {
+        return Collections.singletonMap("type", type);
+    }
+
+    /**
+     * Build the indexed representation of a user
+     */
+    public static Map<String, Object> toDocument(User user) {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("id", user.getId());
+        document.put("name", user.getUsername());
+        document.put("DOB", user.getDateOfBirth());
+        document.put("fatherName", user.getFatherName());
+        document.put("motherName", user.getMotherName());
+        document.put("gender", user.getGender());
+        document.put("nationality", user.getNationality());
+        document.put("phoneNumber", user.getPhoneNumber());
+        document.put("primaryOccupation", user.getPrimaryOccupation());
+        document.put("secondaryOccupation", user.getSecondaryOccupation());
+        document.put("skills", user.getSkills());
+        document.put("language", user.getLanguage());
+        return document;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        User user = event.getUser();
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        enqueue(user.getId(), toDocument(user));
+    }
+
+    @Override
+    protected String indexFor(Long id, Map<String, Object> document) {
+        return USERS_INDEX;
+    }
+}
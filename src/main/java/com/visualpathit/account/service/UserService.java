@@ -10,6 +10,8 @@ public interface UserService {
     void save(User user);
     /** {@inheritDoc}} !*/
     void update(User user);
+    /** Point a user at a newly processed profile photo */
+    void updateProfilePhoto(long userId, String profileImg, String profileImgPath);
     /** {@inheritDoc}} !*/
     User findByUsername(String username);
     User findById(long id);
@@ -1,10 +1,13 @@
 package com.visualpathit.account.service;
 
+import com.visualpathit.account.event.ProfilePhotoChangedEvent;
+import com.visualpathit.account.event.UserChangedEvent;
 import com.visualpathit.account.model.User;
 import com.visualpathit.account.repository.RoleRepository;
 import com.visualpathit.account.repository.UserRepository;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +27,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     /** bCryptPasswordEncoder !*/
     private BCryptPasswordEncoder bCryptPasswordEncoder;
+    @Autowired
+    /** eventPublisher !*/
+    private ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -41,12 +47,28 @@ public class UserServiceImpl implements UserService {
         // This allows users to have no profile picture initially
 
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user, true));
     }
 
     @Override
+    @Transactional
     public void update(final User user) {
         // Update user profile without touching password and roles
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user, false));
+    }
+
+    @Override
+    @Transactional
+    public void updateProfilePhoto(final long userId, final String profileImg, final String profileImgPath) {
+        String previousProfileImg = userRepository.findProfileImgById(userId);
+        // Only the photo columns, so a profile edit saved meanwhile is not overwritten
+        if (userRepository.updateProfileImg(userId, profileImg, profileImgPath) == 0) {
+            return;
+        }
+        User user = userRepository.findById(userId);
+        eventPublisher.publishEvent(new UserChangedEvent(user, false));
+        eventPublisher.publishEvent(new ProfilePhotoChangedEvent(user, previousProfileImg));
     }
 
     @Override
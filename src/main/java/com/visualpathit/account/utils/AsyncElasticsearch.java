@@ -0,0 +1,78 @@
+package com.visualpathit.account.utils;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs calls on the shared client's async API within a bounded in-flight window.
+ *
+ * A permit is taken before the call is sent and returned when its listener
+ * fires. When every permit is in use the call is refused at once instead of
+ * queueing, so a slow cluster cannot pile up requests or hold servlet threads.
+ */
+@Component
+public class AsyncElasticsearch {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncElasticsearch.class);
+
+    private final int maxInFlight;
+    private final Semaphore permits;
+
+    public AsyncElasticsearch(@Value("${elasticsearch.async.maxInFlight:64}") int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Start an async call, e.g. {@code execute((client, listener) -> client.getAsync(request, options, listener))}
+     *
+     * @return a future completed by the client's I/O thread; completed exceptionally with
+     *         RejectedExecutionException if the window is full or the client is unavailable
+     */
+    public <T> CompletableFuture<T> execute(BiConsumer<RestHighLevelClient, ActionListener<T>> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        RestHighLevelClient client = ElasticsearchUtil.getRestHighLevelClient();
+        if (client == null) {
+            future.completeExceptionally(new RejectedExecutionException("Elasticsearch client is not available"));
+            return future;
+        }
+        if (!permits.tryAcquire()) {
+            logger.warn("Refusing Elasticsearch call: all {} in-flight permits are in use", maxInFlight);
+            future.completeExceptionally(new RejectedExecutionException("Too many Elasticsearch requests in flight"));
+            return future;
+        }
+
+        ActionListener<T> listener = new ActionListener<T>() {
+            @Override
+            public void onResponse(T response) {
+                permits.release();
+                future.complete(response);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                permits.release();
+                future.completeExceptionally(e);
+            }
+        };
+        try {
+            call.accept(client, listener);
+        } catch (RuntimeException e) {
+            listener.onFailure(e);
+        }
+        return future;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+}
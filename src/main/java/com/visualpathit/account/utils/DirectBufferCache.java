@@ -0,0 +1,135 @@
+package com.visualpathit.account.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Least recently used cache of small byte contents kept outside the Java heap.
+ *
+ * Each entry is copied once into its own direct ByteBuffer, so a large cache
+ * adds nothing to what the garbage collector has to scan or copy, and pairs it
+ * with some metadata M (headers, validators) describing it. The cache is
+ * bounded by the total size of the contents, not by the number of entries;
+ * contents larger than maxEntryBytes are refused. Evicted buffers are released
+ * when the garbage collector reclaims them, so the process can briefly use up
+ * to twice maxBytes of direct memory under heavy churn.
+ */
+public class DirectBufferCache<K, M> {
+
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private final LinkedHashMap<K, Entry<M>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long usedBytes;
+    private long hits;
+    private long misses;
+
+    public DirectBufferCache(long maxBytes, int maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    /**
+     * @return the entry, or null if absent
+     */
+    public synchronized Entry<M> get(K key) {
+        Entry<M> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * @return true if the content is small enough to be cached
+     */
+    public boolean accepts(long size) {
+        return size <= maxEntryBytes && size <= maxBytes;
+    }
+
+    /**
+     * Copy content, from its position to its limit, into the cache
+     *
+     * @return the new entry, or null if the content is too large
+     */
+    public Entry<M> put(K key, M metadata, ByteBuffer content) {
+        int size = content.remaining();
+        if (!accepts(size)) {
+            return null;
+        }
+        // Allocated and filled outside the lock; only the bookkeeping is serialised
+        ByteBuffer direct = ByteBuffer.allocateDirect(size);
+        direct.put(content.duplicate()).flip();
+        Entry<M> entry = new Entry<>(metadata, direct.asReadOnlyBuffer());
+        synchronized (this) {
+            Entry<M> previous = entries.put(key, entry);
+            usedBytes += size - (previous != null ? previous.size() : 0);
+            Iterator<Entry<M>> eldest = entries.values().iterator();
+            while (usedBytes > maxBytes && eldest.hasNext()) {
+                usedBytes -= eldest.next().size();
+                eldest.remove();
+            }
+        }
+        return entry;
+    }
+
+    public synchronized void remove(K key) {
+        Entry<M> removed = entries.remove(key);
+        if (removed != null) {
+            usedBytes -= removed.size();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Cached content and its metadata
+     */
+    public static final class Entry<M> {
+
+        private final M metadata;
+        private final ByteBuffer content;
+
+        private Entry(M metadata, ByteBuffer content) {
+            this.metadata = metadata;
+            this.content = content;
+        }
+
+        public M getMetadata() {
+            return metadata;
+        }
+
+        /**
+         * @return a read-only view of the whole content, with its own position, for one reader
+         */
+        public ByteBuffer getContent() {
+            return content.duplicate();
+        }
+
+        public int size() {
+            return content.capacity();
+        }
+    }
+}
@@ -1,45 +1,107 @@
 package com.visualpathit.account.utils;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
 
 import org.apache.http.HttpHost;
-import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestClientBuilder;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.visualpathit.account.beans.Components;
 
+/**
+ * Holds the application-wide Elasticsearch client.
+ *
+ * The client owns an I/O reactor and a connection pool, so it is built once on
+ * first use and shared by every caller. Callers must not close it: it is closed
+ * when the Spring context shuts down.
+ */
 @Service
-public class ElasticsearchUtil {
+public class ElasticsearchUtil implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ElasticsearchUtil.class);
 
     private static Components object;
 
+    private static volatile RestHighLevelClient client;
+
+    private static volatile CircuitBreaker circuitBreaker = new CircuitBreaker(5, 30000);
+
     @Autowired
     public void setComponents(Components object) {
-        ElasticsearchUtil.object = object;    	
+        ElasticsearchUtil.object = object;
+        circuitBreaker = new CircuitBreaker(object.getElasticsearchBreakerFailureThreshold(),
+                object.getElasticsearchBreakerOpenMs());
     }
 
+    /**
+     * Breaker shared by callers that can fall back when Elasticsearch is down
+     */
+    public static CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Returns the shared client, creating it on first call.
+     *
+     * @return the shared client, or null if it could not be created
+     */
     public static RestHighLevelClient getRestHighLevelClient() {
-        System.out.println("Creating Elasticsearch client...");
+        RestHighLevelClient current = client;
+        if (current != null) {
+            return current;
+        }
+        synchronized (ElasticsearchUtil.class) {
+            if (client == null) {
+                client = createClient();
+            }
+            return client;
+        }
+    }
+
+    private static RestHighLevelClient createClient() {
         String elasticsearchHost = object.getElasticsearchHost();
         String elasticsearchPort = object.getElasticsearchPort();
-        
-        System.out.println("Elasticsearch Host: " + elasticsearchHost);
-        System.out.println("Elasticsearch Port: " + elasticsearchPort);
+        logger.info("Creating shared Elasticsearch client for {}:{}", elasticsearchHost, elasticsearchPort);
 
-        RestHighLevelClient client = null;
         try {
-            client = new RestHighLevelClient(
-                RestClient.builder(
-                    new HttpHost(elasticsearchHost, Integer.parseInt(elasticsearchPort), "http")
-                )
-            );
+            RestClientBuilder builder = RestClient.builder(
+                    new HttpHost(elasticsearchHost, Integer.parseInt(elasticsearchPort), "http"))
+                .setRequestConfigCallback(requestConfig -> requestConfig
+                    .setConnectTimeout(object.getElasticsearchConnectTimeoutMs())
+                    .setSocketTimeout(object.getElasticsearchSocketTimeoutMs())
+                    .setConnectionRequestTimeout(object.getElasticsearchConnectionRequestTimeoutMs()))
+                .setHttpClientConfigCallback(httpClient -> httpClient
+                    .setMaxConnTotal(object.getElasticsearchMaxConnTotal())
+                    .setMaxConnPerRoute(object.getElasticsearchMaxConnPerRoute())
+                    // Elasticsearch does not send Keep-Alive headers, so bound idle reuse ourselves
+                    .setKeepAliveStrategy((response, context) -> object.getElasticsearchKeepAliveMs()));
+            return new RestHighLevelClient(builder);
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Failed to create Elasticsearch client", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        RestHighLevelClient current;
+        synchronized (ElasticsearchUtil.class) {
+            current = client;
+            client = null;
+        }
+        if (current != null) {
+            logger.info("Closing shared Elasticsearch client");
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.warn("Error closing Elasticsearch client: {}", e.getMessage());
+            }
         }
-        return client;
     }
 }
@@ -0,0 +1,122 @@
+package com.visualpathit.account.utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Memory-bounded decoding of uploaded and proxied images, and JPEG encoding.
+ *
+ * ImageIO.read decodes every pixel of the source. Here the dimensions are read
+ * from the header first, oversized images are refused before any pixel is
+ * decoded, and the reader is asked for just the region needed, keeping only
+ * every n-th pixel, so the bitmap held in memory is close to the size the
+ * caller scales it to rather than the size of the original.
+ */
+public final class ImageUtils {
+
+    private ImageUtils() {
+    }
+
+    /**
+     * Decode the centred square of an image, subsampled to no less than minSize pixels a side
+     *
+     * @param maxPixels refuse images whose width x height is larger, e.g. decompression bombs
+     * @return the square, between minSize and 2 x minSize pixels a side unless the source is smaller
+     * @throws IOException if the file is not a readable image
+     * @throws IllegalArgumentException if the image has more than maxPixels pixels
+     */
+    public static BufferedImage readCenteredSquare(Path file, int minSize, long maxPixels) throws IOException {
+        return read(file, maxPixels, (width, height, param) -> {
+            int size = Math.min(width, height);
+            int step = subsampling(size, minSize);
+            param.setSourceRegion(new Rectangle((width - size) / 2, (height - size) / 2, size, size));
+            param.setSourceSubsampling(step, step, 0, 0);
+        });
+    }
+
+    /**
+     * Decode a whole image, subsampled to no less than minWidth pixels wide
+     *
+     * @throws IOException if the file is not a readable image
+     * @throws IllegalArgumentException if the image has more than maxPixels pixels
+     */
+    public static BufferedImage readSubsampled(Path file, int minWidth, long maxPixels) throws IOException {
+        return read(file, maxPixels, (width, height, param) -> {
+            int step = subsampling(width, minWidth);
+            param.setSourceSubsampling(step, step, 0, 0);
+        });
+    }
+
+    private static BufferedImage read(Path file, long maxPixels, ReadRegion region) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            if (input == null) {
+                throw new IOException("Cannot open " + file);
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Not a supported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IllegalArgumentException("Image is " + width + "x" + height
+                            + ", more than the " + maxPixels + " pixel limit");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                region.apply(width, height, param);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Encode an RGB image as JPEG
+     *
+     * @param progressive worth it for large images only; small JPEGs get bigger
+     */
+    public static void writeJpeg(BufferedImage image, Path file, float quality, boolean progressive) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+        if (progressive) {
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+        }
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * @return the largest step that still leaves at least minSize pixels out of size
+     */
+    public static int subsampling(int size, int minSize) {
+        return Math.max(1, size / Math.max(1, minSize));
+    }
+
+    /**
+     * Source region and subsampling to read, given the image dimensions
+     */
+    private interface ReadRegion {
+        void apply(int width, int height, ImageReadParam param);
+    }
+}
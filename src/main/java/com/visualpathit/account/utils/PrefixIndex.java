@@ -0,0 +1,132 @@
+package com.visualpathit.account.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Case-insensitive prefix lookup over a set of names.
+ *
+ * Names are held in a sorted array, so a prefix query is one binary search and a
+ * copy of at most limit entries. Readers never lock: every change builds a new array
+ * and publishes it through a volatile field. Inserts are O(n), which is fine for
+ * registration-rate updates against keystroke-rate reads.
+ */
+public class PrefixIndex {
+
+    private static final String[] EMPTY = new String[0];
+
+    /** Lower-cased keys and the original names, kept in the same (key) order */
+    private volatile Snapshot snapshot = new Snapshot(EMPTY, EMPTY);
+
+    /**
+     * Add many names at once, e.g. after loading from the database. Names added
+     * concurrently through {@link #add(String)} are kept.
+     */
+    public synchronized void addAll(Collection<String> names) {
+        List<String> sorted = new ArrayList<>(Arrays.asList(snapshot.values));
+        for (String name : names) {
+            if (name != null && !name.isEmpty()) {
+                sorted.add(name);
+            }
+        }
+        sorted.sort((a, b) -> {
+            int byKey = key(a).compareTo(key(b));
+            return byKey != 0 ? byKey : a.compareTo(b);
+        });
+
+        List<String> keys = new ArrayList<>(sorted.size());
+        List<String> values = new ArrayList<>(sorted.size());
+        for (String name : sorted) {
+            if (values.isEmpty() || !values.get(values.size() - 1).equals(name)) {
+                keys.add(key(name));
+                values.add(name);
+            }
+        }
+        snapshot = new Snapshot(keys.toArray(EMPTY), values.toArray(EMPTY));
+    }
+
+    /**
+     * Add one name; no-op if it is already present
+     */
+    public synchronized void add(String name) {
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        Snapshot current = snapshot;
+        String key = key(name);
+        int position = lowerBound(current.keys, key);
+        for (int i = position; i < current.keys.length && current.keys[i].equals(key); i++) {
+            if (current.values[i].equals(name)) {
+                return;
+            }
+        }
+
+        int size = current.keys.length;
+        String[] keys = new String[size + 1];
+        String[] values = new String[size + 1];
+        System.arraycopy(current.keys, 0, keys, 0, position);
+        System.arraycopy(current.values, 0, values, 0, position);
+        keys[position] = key;
+        values[position] = name;
+        System.arraycopy(current.keys, position, keys, position + 1, size - position);
+        System.arraycopy(current.values, position, values, position + 1, size - position);
+        snapshot = new Snapshot(keys, values);
+    }
+
+    /**
+     * @return up to limit names starting with the prefix, ignoring case, in key order
+     */
+    public List<String> find(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Snapshot current = snapshot;
+        String key = key(prefix);
+        int from = lowerBound(current.keys, key);
+        int to = Math.min(from + limit, current.keys.length);
+        int end = from;
+        while (end < to && current.keys[end].startsWith(key)) {
+            end++;
+        }
+        return Arrays.asList(Arrays.copyOfRange(current.values, from, end));
+    }
+
+    public int size() {
+        return snapshot.keys.length;
+    }
+
+    /**
+     * First position whose key is &gt;= the given key
+     */
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Snapshot {
+        private final String[] keys;
+        private final String[] values;
+
+        private Snapshot(String[] keys, String[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+}
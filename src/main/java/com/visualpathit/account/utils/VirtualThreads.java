@@ -0,0 +1,102 @@
+package com.visualpathit.account.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factories that use virtual threads when asked to and the JVM has them.
+ *
+ * The build targets Java 17, so the Java 21 builder API is looked up
+ * reflectively; on an older JVM callers get daemon platform threads instead.
+ */
+public final class VirtualThreads {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private static final String TRACE_PINNED = "jdk.tracePinnedThreads";
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+        } catch (ReflectiveOperationException e) {
+            // Before Java 21
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @param preferVirtual false, or true on a JVM without virtual threads, gives daemon platform threads
+     * @return a factory naming its threads prefix0, prefix1, ...
+     */
+    public static ThreadFactory threadFactory(String prefix, boolean preferVirtual) {
+        if (preferVirtual && isSupported()) {
+            try {
+                Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+                return (ThreadFactory) FACTORY.invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Could not create virtual threads, using platform threads: {}", e.getMessage());
+            }
+        } else if (preferVirtual) {
+            logger.warn("Virtual threads need Java 21 or later (running {}), using platform threads",
+                    System.getProperty("java.version"));
+        }
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Executor running at most maxConcurrency tasks at once; further tasks wait in order.
+     * With virtual threads the pool only enforces the cap, as idle threads cost next to nothing.
+     */
+    public static ExecutorService newBoundedExecutor(String prefix, int maxConcurrency, boolean preferVirtual) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory(prefix, preferVirtual));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Have the JVM print a stack trace when a virtual thread blocks while pinned to its
+     * carrier, e.g. on I/O inside a synchronized block. Only takes effect if called before
+     * the first virtual thread starts, and an explicit -Djdk.tracePinnedThreads wins.
+     *
+     * @param mode "short" or "full"
+     */
+    public static void tracePinnedThreads(String mode) {
+        if (isSupported() && System.getProperty(TRACE_PINNED) == null) {
+            System.setProperty(TRACE_PINNED, mode);
+            logger.info("Reporting pinned virtual threads ({} stack traces on stdout)", mode);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+-- ============================================
+-- FLYWAY MIGRATION V4: Event Outbox Table
+-- ============================================
+-- Description: Creates the event_outbox table. Domain events are written here
+--              in the same transaction as the change they describe, then relayed
+--              to RabbitMQ in id order and deleted once the broker confirms them.
+--              A relay claims rows in a short transaction (claim_token) and
+--              publishes them with no database locks held. A claim expires at
+--              claimed_until, so rows claimed by a relay that died are picked
+--              up again.
+-- Author: Facelink Team
+-- ============================================
+
+CREATE TABLE IF NOT EXISTS event_outbox (
+    id BIGINT UNSIGNED PRIMARY KEY AUTO_INCREMENT,
+    event_id VARCHAR(36) NOT NULL,
+    exchange_name VARCHAR(100) NOT NULL,
+    routing_key VARCHAR(100) NOT NULL,
+    schema_version INT NOT NULL,
+    payload VARBINARY(8000) NOT NULL,
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    claim_token VARCHAR(36) NULL,
+    claimed_until TIMESTAMP(3) NULL,
+    UNIQUE KEY unique_event_id (event_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -1,5 +1,6 @@
 <%@ page language="java" contentType="text/html; charset=UTF-8"
     pageEncoding="UTF-8"%>
+<%@ taglib prefix="c" uri="http://java.sun.com/jsp/jstl/core" %>
 <!DOCTYPE html>
 <html lang="en">
 <head>
@@ -31,5 +32,9 @@
     <h1>RabbitMQ Initiated</h1>
     <h3>Generated <%= connections %> Connections</h3>
     <h3><%= channels %> Channels, <%= exchange %> Exchange, and <%= queues %> Queues</h3>
+    <h3>Failed messages: ${retried} sent for retry, ${parked} parked</h3>
+    <c:forEach items="${failures}" var="failure">
+        <p>${failure.key}: ${failure.value}</p>
+    </c:forEach>
 </body>
 </html>
@@ -128,7 +128,8 @@
                                         <span class="user-avatar pull-left" style="margin-right: 8px; margin-top: -5px;">
                                             <c:choose>
                                                 <c:when test="${not empty currentUser.profileImg}">
-                                                    <img src="${contextPath}${currentUser.profileImg}"
+                                                    <img src="${contextPath}${currentUser.avatarUrl(40)}"
+                                                         srcset="${contextPath}${currentUser.avatarUrl(96)} 2x"
                                                          class="img-responsive img-circle"
                                                          alt="${currentUser.username}"
                                                          width="30px" height="30px"
@@ -152,7 +153,7 @@
                                                     <div class="col-md-5">
                                                         <c:choose>
                                                             <c:when test="${not empty currentUser.profileImg}">
-                                                                <img src="${contextPath}${currentUser.profileImg}"
+                                                                <img src="${contextPath}${currentUser.avatarUrl(300)}"
                                                                      alt="Profile"
                                                                      class="img-responsive"
                                                                      width="120px" height="120px"
@@ -228,7 +229,7 @@
                             <div class="post-header">
                                 <c:choose>
                                     <c:when test="${not empty post.author.profileImg}">
-                                        <img src="${contextPath}${post.author.profileImg}"
+                                        <img src="${contextPath}${post.author.avatarUrl(96)}"
                                              class="avatar"
                                              alt="${post.author.username}"
                                              onerror="this.src='${contextPath}/resources/Images/default-avatar.png'">
@@ -247,7 +248,7 @@
                             <div class="post-content">
                                 <p style="white-space: pre-wrap;">${post.content}</p>
                                 <c:if test="${not empty post.imageUrl}">
-                                    <img src="${post.imageUrl}" class="post-image" alt="Post image">
+                                    <img src="${contextPath}/img-proxy/${post.id}" class="post-image" alt="Post image" loading="lazy">
                                 </c:if>
                             </div>
                             <div class="post-actions">
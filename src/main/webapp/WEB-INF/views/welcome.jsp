@@ -147,7 +147,8 @@
                                         <span class="user-avatar pull-left" style="margin-right: 8px; margin-top: -5px;">
                                             <c:choose>
                                                 <c:when test="${not empty currentUser.profileImg}">
-                                                    <img src="${contextPath}${currentUser.profileImg}"
+                                                    <img src="${contextPath}${currentUser.avatarUrl(40)}"
+                                                         srcset="${contextPath}${currentUser.avatarUrl(96)} 2x"
                                                          class="img-responsive img-circle user-avatar-small"
                                                          title="${pageContext.request.userPrincipal.name}"
                                                          alt="${pageContext.request.userPrincipal.name}"
@@ -173,7 +174,7 @@
                                                     <div class="col-md-5">
                                                         <c:choose>
                                                             <c:when test="${not empty currentUser.profileImg}">
-                                                                <img src="${contextPath}${currentUser.profileImg}"
+                                                                <img src="${contextPath}${currentUser.avatarUrl(300)}"
                                                                      alt="Photo de profil"
                                                                      class="img-responsive"
                                                                      width="120px" height="120px"
@@ -235,6 +236,15 @@
         </div>
     </c:if>
 
+    <c:if test="${param.success == 'photoProcessing'}">
+        <div class="alert alert-success alert-dismissible" role="alert">
+            <button type="button" class="close" data-dismiss="alert" aria-label="Close">
+                <span aria-hidden="true">&times;</span>
+            </button>
+            <i class="fa fa-check-circle"></i> Photo reçue ! Elle remplacera votre photo de profil dans quelques secondes.
+        </div>
+    </c:if>
+
     <c:if test="${param.error == 'emptyFile'}">
         <div class="alert alert-danger alert-dismissible" role="alert">
             <button type="button" class="close" data-dismiss="alert" aria-label="Close">
@@ -262,6 +272,15 @@
         </div>
     </c:if>
 
+    <c:if test="${param.error == 'uploadBusy'}">
+        <div class="alert alert-danger alert-dismissible" role="alert">
+            <button type="button" class="close" data-dismiss="alert" aria-label="Close">
+                <span aria-hidden="true">&times;</span>
+            </button>
+            <i class="fa fa-exclamation-triangle"></i> Trop de photos en cours de traitement. Veuillez réessayer dans un instant.
+        </div>
+    </c:if>
+
     <c:if test="${param.error == 'uploadFailed'}">
         <div class="alert alert-danger alert-dismissible" role="alert">
             <button type="button" class="close" data-dismiss="alert" aria-label="Close">
@@ -283,7 +302,7 @@
                         <c:choose>
                             <c:when test="${not empty currentUser.profileImg}">
                                 <img class="thumbnail img-responsive"
-                                     src="${contextPath}${currentUser.profileImg}"
+                                     src="${contextPath}${currentUser.avatarUrl(300)}"
                                      width="300px" height="300px"
                                      alt="Photo de profil"
                                      onerror="this.src='${contextPath}/resources/Images/default-avatar.png'">
@@ -399,7 +418,7 @@
                         <div class="post-header">
                             <c:choose>
                                 <c:when test="${not empty post.author.profileImg}">
-                                    <img src="${contextPath}${post.author.profileImg}"
+                                    <img src="${contextPath}${post.author.avatarUrl(96)}"
                                          class="avatar"
                                          alt="${post.author.username}"
                                          onerror="this.src='${contextPath}/resources/Images/default-avatar.png'">
@@ -418,7 +437,7 @@
                         <div class="post-content">
                             <p style="white-space: pre-wrap;">${post.content}</p>
                             <c:if test="${not empty post.imageUrl}">
-                                <img src="${post.imageUrl}" class="post-image" alt="Post image">
+                                <img src="${contextPath}/img-proxy/${post.id}" class="post-image" alt="Post image" loading="lazy">
                             </c:if>
                         </div>
                         <div class="post-actions">
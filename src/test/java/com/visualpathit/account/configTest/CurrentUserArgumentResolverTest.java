@@ -0,0 +1,210 @@
+package com.visualpathit.account.configTest;
+
+import com.visualpathit.account.config.CurrentUser;
+import com.visualpathit.account.config.CurrentUserArgumentResolver;
+import com.visualpathit.account.event.UserChangedEvent;
+import com.visualpathit.account.model.SessionUser;
+import com.visualpathit.account.model.User;
+import com.visualpathit.account.service.CacheInvalidationBus;
+import com.visualpathit.account.service.SecurityService;
+import com.visualpathit.account.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CurrentUserArgumentResolver
+ * Tests the session snapshot, its refresh on user changes and the detached User
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CurrentUserArgumentResolver Unit Tests")
+class CurrentUserArgumentResolverTest {
+
+    @Mock
+    private SecurityService securityService;
+
+    @Mock
+    private UserService userService;
+
+    private User alice;
+    private CurrentUserArgumentResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        alice = new User();
+        alice.setId(7L);
+        alice.setUsername("alice");
+        alice.setUserEmail("alice@example.com");
+        alice.setProfileImg("/uploads/profiles/ab/cd/abcd-300.jpg");
+
+        resolver = new CurrentUserArgumentResolver();
+        ReflectionTestUtils.setField(resolver, "securityService", securityService);
+        ReflectionTestUtils.setField(resolver, "userService", userService);
+        ReflectionTestUtils.setField(resolver, "invalidationBus", new CacheInvalidationBus());
+        resolver.afterPropertiesSet();
+    }
+
+    @Test
+    @DisplayName("Should load the user once per session")
+    void testResolve_OncePerSession() {
+        // Given
+        loggedIn();
+        MockHttpSession session = new MockHttpSession();
+
+        // When
+        SessionUser first = (SessionUser) resolve(snapshotParameter(), session);
+        SessionUser second = (SessionUser) resolve(snapshotParameter(), session);
+
+        // Then
+        assertSame(first, second);
+        assertEquals("alice@example.com", second.getUserEmail());
+        assertEquals("/uploads/profiles/ab/cd/abcd-40.jpg", second.avatarUrl(40));
+        verify(userService, times(1)).findByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("Should give User parameters a detached user with the snapshot fields")
+    void testResolve_DetachedUser() {
+        // Given
+        loggedIn();
+
+        // When
+        User user = (User) resolve(userParameter(), new MockHttpSession());
+
+        // Then
+        assertNotSame(alice, user);
+        assertEquals(7L, user.getId());
+        assertEquals("alice", user.getUsername());
+    }
+
+    @Test
+    @DisplayName("Should refresh every session of a user once after a change")
+    void testOnUserChanged_RefreshesSessions() {
+        // Given
+        loggedIn();
+        MockHttpSession laptop = new MockHttpSession();
+        MockHttpSession phone = new MockHttpSession();
+        resolve(snapshotParameter(), laptop);
+        resolve(snapshotParameter(), phone);
+
+        // When
+        alice.setUserEmail("alice@new.example.com");
+        resolver.onUserChanged(new UserChangedEvent(alice, false));
+        SessionUser onLaptop = (SessionUser) resolve(snapshotParameter(), laptop);
+        SessionUser onPhone = (SessionUser) resolve(snapshotParameter(), phone);
+        resolve(snapshotParameter(), laptop);
+        resolve(snapshotParameter(), phone);
+
+        // Then
+        assertEquals("alice@new.example.com", onLaptop.getUserEmail());
+        assertEquals("alice@new.example.com", onPhone.getUserEmail());
+        verify(userService, times(4)).findByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("Should not trust a snapshot loaded while a change was committing")
+    void testResolve_ChangeDuringLoad() {
+        // Given
+        when(securityService.findLoggedInUsername()).thenReturn("alice");
+        when(userService.findByUsername("alice"))
+                .thenAnswer(invocation -> {
+                    // The change commits and evicts after this read returned its stale row
+                    resolver.onUserChanged(new UserChangedEvent(alice, false));
+                    return alice;
+                })
+                .thenReturn(alice);
+        MockHttpSession session = new MockHttpSession();
+
+        // When
+        resolve(snapshotParameter(), session);
+        resolve(snapshotParameter(), session);
+
+        // Then
+        verify(userService, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("Should not reuse the snapshot of another user")
+    void testResolve_OtherUser() {
+        // Given
+        loggedIn();
+        MockHttpSession session = new MockHttpSession();
+        resolve(snapshotParameter(), session);
+        User bob = new User();
+        bob.setId(8L);
+        bob.setUsername("bob");
+        when(securityService.findLoggedInUsername()).thenReturn("bob");
+        when(userService.findByUsername("bob")).thenReturn(bob);
+
+        // When
+        SessionUser current = (SessionUser) resolve(snapshotParameter(), session);
+
+        // Then
+        assertEquals("bob", current.getUsername());
+    }
+
+    @Test
+    @DisplayName("Should resolve to null without a logged-in user")
+    void testResolve_Anonymous() {
+        // When
+        Object current = resolve(snapshotParameter(), new MockHttpSession());
+
+        // Then
+        assertNull(current);
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    @DisplayName("Should only support annotated SessionUser and User parameters")
+    void testSupportsParameter() {
+        assertTrue(resolver.supportsParameter(snapshotParameter()));
+        assertTrue(resolver.supportsParameter(userParameter()));
+        assertFalse(resolver.supportsParameter(parameter(2)));
+    }
+
+    private void loggedIn() {
+        when(securityService.findLoggedInUsername()).thenReturn("alice");
+        lenient().when(userService.findByUsername("alice")).thenAnswer(invocation -> alice);
+    }
+
+    private Object resolve(MethodParameter parameter, MockHttpSession session) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(session);
+        return resolver.resolveArgument(parameter, null, new ServletWebRequest(request), null);
+    }
+
+    private static MethodParameter snapshotParameter() {
+        return parameter(0);
+    }
+
+    private static MethodParameter userParameter() {
+        return parameter(1);
+    }
+
+    private static MethodParameter parameter(int index) {
+        try {
+            Method method = CurrentUserArgumentResolverTest.class.getDeclaredMethod(
+                    "handler", SessionUser.class, User.class, User.class);
+            return new MethodParameter(method, index);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private void handler(@CurrentUser SessionUser snapshot, @CurrentUser User user, User other) {
+    }
+}
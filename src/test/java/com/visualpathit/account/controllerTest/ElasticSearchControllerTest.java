@@ -0,0 +1,129 @@
+package com.visualpathit.account.controllerTest;
+
+import com.visualpathit.account.controller.ElasticSearchController;
+import com.visualpathit.account.model.Post;
+import com.visualpathit.account.model.User;
+import com.visualpathit.account.service.PostIndexer;
+import com.visualpathit.account.service.PostService;
+import com.visualpathit.account.service.UserIndexManager;
+import com.visualpathit.account.service.UserService;
+import com.visualpathit.account.utils.AsyncElasticsearch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ElasticSearchController
+ * Tests that long-running index work is kept off the request thread
+ */
+@DisplayName("ElasticSearchController Unit Tests")
+class ElasticSearchControllerTest {
+
+    private UserIndexManager userIndexManager;
+    private UserService userService;
+    private PostService postService;
+    private PostIndexer postIndexer;
+    private ElasticSearchController controller;
+
+    @BeforeEach
+    void setUp() {
+        userIndexManager = mock(UserIndexManager.class);
+        userService = mock(UserService.class);
+        postService = mock(PostService.class);
+        postIndexer = mock(PostIndexer.class);
+        controller = new ElasticSearchController();
+        ReflectionTestUtils.setField(controller, "userIndexManager", userIndexManager);
+        ReflectionTestUtils.setField(controller, "userService", userService);
+        ReflectionTestUtils.setField(controller, "postService", postService);
+        ReflectionTestUtils.setField(controller, "postIndexer", postIndexer);
+        ReflectionTestUtils.setField(controller, "asyncElasticsearch", mock(AsyncElasticsearch.class));
+        controller.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        controller.destroy();
+    }
+
+    @Test
+    @DisplayName("Should answer before the users reindex has finished")
+    void testReindex_RunsInBackground() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        when(userIndexManager.reindex()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            finished.countDown();
+            return "users-v1";
+        });
+        ExtendedModelMap model = new ExtendedModelMap();
+
+        // When
+        controller.reindex(model);
+
+        // Then
+        assertEquals("Users reindex started", model.get("result"));
+        assertEquals(1, finished.getCount());
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Should not start a second users reindex while one is running")
+    void testReindex_AlreadyRunning() throws Exception {
+        // Given
+        when(userIndexManager.isRunning()).thenReturn(true);
+        ExtendedModelMap model = new ExtendedModelMap();
+
+        // When
+        controller.reindex(model);
+
+        // Then
+        assertTrue(model.get("result").toString().startsWith("Not reindexed"));
+        verify(userIndexManager, never()).reindex();
+    }
+
+    @Test
+    @DisplayName("Should load users and posts off the request thread")
+    void testInsert_LoadsInBackground() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        Thread requestThread = Thread.currentThread();
+        Post post = new Post();
+        post.setId(3L);
+        when(postService.findAllPosts()).thenAnswer(invocation -> {
+            assertNotSame(requestThread, Thread.currentThread());
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(post);
+        });
+        when(userService.getList()).thenReturn(Collections.<User>emptyList());
+
+        // When
+        DeferredResult<ModelAndView> result = controller.insert();
+
+        // Then
+        assertFalse(result.hasResult());
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!result.hasResult() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals("Users indexed successfully in Elasticsearch",
+                ((ModelAndView) result.getResult()).getModel().get("result"));
+        verify(postIndexer).enqueue(eq(3L), anyMap());
+    }
+}
@@ -0,0 +1,60 @@
+package com.visualpathit.account.controllerTest;
+
+import com.visualpathit.account.controller.SearchController;
+import com.visualpathit.account.service.InvalidCursorException;
+import com.visualpathit.account.service.SearchService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for SearchController
+ * Tests that only a malformed cursor is reported as a bad request
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SearchController Unit Tests")
+class SearchControllerTest {
+
+    @Mock
+    private SearchService searchService;
+
+    @InjectMocks
+    private SearchController controller;
+
+    @Test
+    @DisplayName("Should answer 400 for a malformed cursor")
+    void testSearch_InvalidCursor() throws Exception {
+        // Given
+        when(searchService.search(anyString(), anyString(), anyString(), eq("bad"), anyInt()))
+                .thenThrow(new InvalidCursorException("Invalid search cursor", null));
+
+        // When
+        ResponseEntity<?> response = controller.search("alice", SearchService.TYPE_ALL, SearchService.SCOPE_RECENT, "bad", 20);
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should not blame the cursor for other illegal arguments")
+    void testSearch_OtherIllegalArgument() throws Exception {
+        // Given
+        when(searchService.search(anyString(), anyString(), anyString(), isNull(), anyInt()))
+                .thenThrow(new IllegalArgumentException("[multi_match] unknown field"));
+
+        // When
+        ResponseEntity<?> response = controller.search("alice", SearchService.TYPE_ALL, SearchService.SCOPE_RECENT, null, 20);
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+}
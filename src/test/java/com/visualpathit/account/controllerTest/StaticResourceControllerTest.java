@@ -0,0 +1,168 @@
+package com.visualpathit.account.controllerTest;
+
+import com.visualpathit.account.controller.StaticResourceController;
+import com.visualpathit.account.event.ProfilePhotoChangedEvent;
+import com.visualpathit.account.model.User;
+import com.visualpathit.account.service.ProfilePhotoStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit tests for StaticResourceController
+ * Tests validators, conditional requests, byte ranges, both URL layouts and the hot cache
+ */
+@DisplayName("StaticResourceController Unit Tests")
+class StaticResourceControllerTest {
+
+    private static final String KEY = "ab12" + "0".repeat(60);
+    private static final String BODY = "0123456789";
+
+    @TempDir
+    Path uploadDir;
+
+    private ProfilePhotoStore store;
+    private StaticResourceController controller;
+    private MockMvc mockMvc;
+    private String url;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new ProfilePhotoStore();
+        ReflectionTestUtils.setField(store, "uploadDir", uploadDir.toString());
+        Path photo = store.pathOf(KEY, 300);
+        Files.createDirectories(photo.getParent());
+        Files.writeString(photo, BODY);
+        url = store.urlOf(KEY, 300);
+
+        controller = new StaticResourceController();
+        ReflectionTestUtils.setField(controller, "profilePhotoStore", store);
+        controller.afterPropertiesSet();
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    @DisplayName("Should serve a content-addressed photo with validators and immutable caching")
+    void testServe_Immutable() throws Exception {
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(content().string(BODY))
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + KEY + "-300\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"));
+    }
+
+    @Test
+    @DisplayName("Should answer 304 without a body when the ETag matches")
+    void testServe_NotModified() throws Exception {
+        MvcResult result = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, "\"" + KEY + "-300\""))
+                .andExpect(status().isNotModified())
+                .andReturn();
+
+        assertEquals(0, result.getResponse().getContentLength());
+    }
+
+    @Test
+    @DisplayName("Should serve a single byte range")
+    void testServe_Range() throws Exception {
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("2345"))
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"));
+    }
+
+    @Test
+    @DisplayName("Should serve the whole file when If-Range names another version")
+    void testServe_StaleIfRange() throws Exception {
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=2-5").header(HttpHeaders.IF_RANGE, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string(BODY));
+    }
+
+    @Test
+    @DisplayName("Should answer 416 for a range past the end")
+    void testServe_UnsatisfiableRange() throws Exception {
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=20-30"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    @DisplayName("Should send headers but no body for HEAD")
+    void testServe_Head() throws Exception {
+        mockMvc.perform(head(url))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, BODY.length()))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Should answer repeated requests for a small photo from memory")
+    void testServe_HotCache() throws Exception {
+        // Given
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        Files.delete(store.pathOf(KEY, 300));
+
+        // Then
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=8-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("89"));
+        assertEquals(BODY.length(), controller.getHotCache().getUsedBytes());
+    }
+
+    @Test
+    @DisplayName("Should drop the renditions of the photo a user left")
+    void testOnProfilePhotoChanged_Evicts() throws Exception {
+        // Given
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        Files.delete(store.pathOf(KEY, 300));
+
+        // When
+        controller.onProfilePhotoChanged(new ProfilePhotoChangedEvent(new User(), url));
+
+        // Then
+        assertEquals(0, controller.getHotCache().size());
+        mockMvc.perform(get(url)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should serve a legacy flat URL with revalidated caching")
+    void testServe_LegacyFlatUrl() throws Exception {
+        // Given
+        Files.writeString(store.getProfilesDir().resolve("legacy.jpg"), BODY);
+
+        // Then
+        mockMvc.perform(get("/uploads/profiles/legacy.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(BODY))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=3600, public"));
+    }
+
+    @Test
+    @DisplayName("Should answer 404 for a missing file or a directory")
+    void testServe_NotFound() throws Exception {
+        mockMvc.perform(get("/uploads/profiles/ab/12/missing-300.jpg"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/uploads/profiles/ab"))
+                .andExpect(status().isNotFound());
+    }
+}
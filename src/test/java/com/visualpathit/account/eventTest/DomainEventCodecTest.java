@@ -0,0 +1,67 @@
+package com.visualpathit.account.eventTest;
+
+import com.visualpathit.account.event.DomainEvent;
+import com.visualpathit.account.event.DomainEventCodec;
+import com.visualpathit.account.event.EventType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DomainEventCodec
+ * Tests the wire format of events published to RabbitMQ
+ */
+@DisplayName("DomainEventCodec Unit Tests")
+class DomainEventCodecTest {
+
+    @Test
+    @DisplayName("Should round-trip an event through a message")
+    void testEncodeDecode_RoundTrip() {
+        // Given
+        DomainEvent event = new DomainEvent(EventType.POST_LIKED, 7L, 3L).with("likesCount", 12);
+
+        // When
+        DomainEvent decoded = DomainEventCodec.decode(DomainEventCodec.encode(event));
+
+        // Then
+        assertEquals(event.getId(), decoded.getId());
+        assertEquals(EventType.POST_LIKED, decoded.getType());
+        assertEquals(7L, decoded.getSubjectId());
+        assertEquals(3L, decoded.getActorId());
+        assertEquals(12, decoded.getData().get("likesCount"));
+    }
+
+    @Test
+    @DisplayName("Should expose type and schema version in headers")
+    void testEncode_Headers() {
+        Message message = DomainEventCodec.encode(new DomainEvent(EventType.USER_REGISTERED, 1L, 1L));
+
+        assertEquals(DomainEventCodec.CONTENT_TYPE, message.getMessageProperties().getContentType());
+        assertEquals(DomainEventCodec.SCHEMA_VERSION,
+                (int) message.getMessageProperties().getHeader(DomainEventCodec.HEADER_SCHEMA_VERSION));
+        assertEquals(EventType.USER_REGISTERED, DomainEventCodec.typeOf(message));
+    }
+
+    @Test
+    @DisplayName("Should refuse newer schema versions and foreign content types")
+    void testDecode_Rejects() {
+        Message newer = DomainEventCodec.encode(new DomainEvent(EventType.POST_CREATED, 1L, 1L));
+        newer.getMessageProperties().setHeader(DomainEventCodec.HEADER_SCHEMA_VERSION, DomainEventCodec.SCHEMA_VERSION + 1);
+        Message plain = MessageBuilder.withBody("hello".getBytes()).setContentType("text/plain").build();
+
+        assertThrows(IllegalArgumentException.class, () -> DomainEventCodec.decode(newer));
+        assertThrows(IllegalArgumentException.class, () -> DomainEventCodec.decode(plain));
+    }
+
+    @Test
+    @DisplayName("Should map routing keys back to event types")
+    void testEventType_RoutingKeys() {
+        for (EventType type : EventType.values()) {
+            assertEquals(type, EventType.fromRoutingKey(type.getRoutingKey()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> EventType.fromRoutingKey("post.deleted"));
+    }
+}
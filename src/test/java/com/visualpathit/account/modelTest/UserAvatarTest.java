@@ -0,0 +1,62 @@
+package com.visualpathit.account.modelTest;
+
+import com.visualpathit.account.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for User.avatarUrl
+ * Tests rendition selection by display size
+ */
+@DisplayName("User Avatar Unit Tests")
+class UserAvatarTest {
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(1L);
+    }
+
+    @Test
+    @DisplayName("Should pick the smallest rendition at least as large as the display size")
+    void testAvatarUrl_PicksRendition() {
+        // Given
+        user.setProfileImg("/uploads/profiles/abc-300.jpg");
+
+        // When / Then
+        assertEquals("/uploads/profiles/abc-40.jpg", user.avatarUrl(30));
+        assertEquals("/uploads/profiles/abc-96.jpg", user.avatarUrl(50));
+        assertEquals("/uploads/profiles/abc-300.jpg", user.avatarUrl(120));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the largest rendition above every size")
+    void testAvatarUrl_LargerThanAll() {
+        // Given
+        user.setProfileImg("/uploads/profiles/abc-300.jpg");
+
+        // When / Then
+        assertEquals("/uploads/profiles/abc-300.jpg", user.avatarUrl(600));
+    }
+
+    @Test
+    @DisplayName("Should keep photos stored before renditions existed")
+    void testAvatarUrl_SingleSizePhoto() {
+        // Given
+        user.setProfileImg("/uploads/profiles/abc.jpg");
+
+        // When / Then
+        assertEquals("/uploads/profiles/abc.jpg", user.avatarUrl(40));
+    }
+
+    @Test
+    @DisplayName("Should return null when the user has no photo")
+    void testAvatarUrl_NoPhoto() {
+        assertNull(user.avatarUrl(40));
+    }
+}
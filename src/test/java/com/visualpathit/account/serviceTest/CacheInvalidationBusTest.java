@@ -0,0 +1,83 @@
+package com.visualpathit.account.serviceTest;
+
+import com.visualpathit.account.service.CacheInvalidationBus;
+import com.visualpathit.account.service.ProducerService;
+import com.visualpathit.account.utils.ExpiringCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CacheInvalidationBus
+ * Tests local and remote eviction without a broker
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CacheInvalidationBus Unit Tests")
+class CacheInvalidationBusTest {
+
+    @Mock
+    private ProducerService producerService;
+
+    @InjectMocks
+    private CacheInvalidationBus bus;
+
+    private ExpiringCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ExpiringCache<>(60000, 100);
+        cache.put("alice", "a");
+        cache.put("bob", "b");
+        bus.register("users", cache);
+    }
+
+    @Test
+    @DisplayName("Should evict the key locally straight away")
+    void testInvalidate_EvictsLocally() {
+        // When
+        bus.invalidate("users", "alice");
+
+        // Then
+        assertNull(cache.get("alice"));
+        assertEquals("b", cache.get("bob"));
+    }
+
+    @Test
+    @DisplayName("Should evict exactly the keys sent by another node")
+    void testOnInvalidation_FromOtherNode() {
+        // When
+        bus.onInvalidation(CacheInvalidationBus.encode("other-node", Map.of("users", Set.of("bob"))));
+
+        // Then
+        assertEquals("a", cache.get("alice"));
+        assertNull(cache.get("bob"));
+    }
+
+    @Test
+    @DisplayName("Should ignore invalidations this node sent itself")
+    void testOnInvalidation_IgnoresOwnMessages() {
+        // When
+        bus.onInvalidation(CacheInvalidationBus.encode(bus.getNodeId(), Map.of("users", Set.of("alice"))));
+
+        // Then
+        assertEquals("a", cache.get("alice"));
+    }
+
+    @Test
+    @DisplayName("Should ignore caches this node has not registered")
+    void testOnInvalidation_UnknownCache() {
+        // When / Then
+        assertDoesNotThrow(() -> bus.onInvalidation(
+                CacheInvalidationBus.encode("other-node", Map.of("timeline", Set.of("0")))));
+        assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,66 @@
+package com.visualpathit.account.serviceTest;
+
+import com.rabbitmq.client.Channel;
+import com.visualpathit.account.event.DomainEvent;
+import com.visualpathit.account.event.DomainEventCodec;
+import com.visualpathit.account.event.EventType;
+import com.visualpathit.account.service.ConsumerServiceImpl;
+import com.visualpathit.account.service.MessageFailureHandler;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ConsumerServiceImpl
+ * Tests that post events are acknowledged one by one, and only once a failed one has been moved
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ConsumerServiceImpl Unit Tests")
+class ConsumerServiceImplTest {
+
+    @Mock
+    private MessageFailureHandler failureHandler;
+
+    @Mock
+    private Channel channel;
+
+    @InjectMocks
+    private ConsumerServiceImpl consumerService;
+
+    @Test
+    @DisplayName("Should requeue only the message whose move was not confirmed")
+    void testConsumePostEvents_MoveNotConfirmed() throws Exception {
+        // Given
+        Message good = delivered(DomainEventCodec.encode(new DomainEvent(EventType.POST_CREATED, 1L, 2L)), 1);
+        Message stuck = delivered(MessageBuilder.withBody(new byte[]{1}).build(), 2);
+        Message parked = delivered(MessageBuilder.withBody(new byte[]{2}).build(), 3);
+        when(failureHandler.handle(eq(ConsumerServiceImpl.POST_ACTIVITY_QUEUE), same(stuck), any(), eq(false)))
+                .thenReturn(false);
+        when(failureHandler.handle(eq(ConsumerServiceImpl.POST_ACTIVITY_QUEUE), same(parked), any(), eq(false)))
+                .thenReturn(true);
+
+        // When
+        consumerService.consumePostEvents(List.of(good, stuck, parked), channel);
+
+        // Then
+        verify(channel).basicAck(1, false);
+        verify(channel).basicNack(2, false, true);
+        verify(channel).basicAck(3, false);
+        verifyNoMoreInteractions(channel);
+    }
+
+    private static Message delivered(Message message, long deliveryTag) {
+        message.getMessageProperties().setDeliveryTag(deliveryTag);
+        return message;
+    }
+}
@@ -0,0 +1,243 @@
+package com.visualpathit.account.serviceTest;
+
+import com.sun.net.httpserver.HttpServer;
+import com.visualpathit.account.service.ImageProxyService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ImageProxyService
+ * Tests fetching, scaling, caching, refusals and deadlines against a local HTTP origin
+ */
+@DisplayName("ImageProxyService Unit Tests")
+class ImageProxyServiceTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer origin;
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final List<ImageProxyService> services = new ArrayList<>();
+    private ImageProxyService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        origin = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serve("/wide.jpg", "image/jpeg", image(2000, 1000, "jpg"));
+        serve("/small.jpg", "image/jpeg", image(400, 200, "jpg"));
+        serve("/page.html", "text/html", "<html></html>".getBytes());
+        origin.createContext("/moved", exchange -> {
+            count("/moved");
+            exchange.getResponseHeaders().add("Location", "/small.jpg");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        origin.createContext("/slow.jpg", exchange -> {
+            count("/slow.jpg");
+            exchange.getResponseHeaders().add("Content-Type", "image/jpeg");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < 100; i++) {
+                    out.write(0);
+                    out.flush();
+                    Thread.sleep(100);
+                }
+            } catch (IOException | InterruptedException e) {
+                // The proxy hung up
+            }
+        });
+        origin.setExecutor(Executors.newCachedThreadPool());
+        origin.start();
+
+        service = newService(true, 512L * 1024 * 1024, 10L * 1024 * 1024);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (ImageProxyService proxy : services) {
+            proxy.destroy();
+        }
+        origin.stop(0);
+    }
+
+    @Test
+    @DisplayName("Should fetch an image once and scale it to the timeline width")
+    void testGetImage_FetchesOnceAndScales() throws IOException {
+        // When
+        Path first = service.getImage(url("/wide.jpg"));
+        Path second = service.getImage(url("/wide.jpg"));
+
+        // Then
+        assertEquals(first, second);
+        assertEquals(1, hits.get("/wide.jpg").get());
+        BufferedImage stored = ImageIO.read(first.toFile());
+        assertEquals(750, stored.getWidth());
+        assertEquals(375, stored.getHeight());
+    }
+
+    @Test
+    @DisplayName("Should never scale a small image up")
+    void testGetImage_KeepsSmallImages() throws IOException {
+        // When
+        Path image = service.getImage(url("/small.jpg"));
+
+        // Then
+        assertEquals(400, ImageIO.read(image.toFile()).getWidth());
+    }
+
+    @Test
+    @DisplayName("Should follow a redirect")
+    void testGetImage_Redirect() throws IOException {
+        // When
+        Path image = service.getImage(url("/moved"));
+
+        // Then
+        assertEquals(1, hits.get("/moved").get());
+        assertEquals(1, hits.get("/small.jpg").get());
+        assertTrue(Files.exists(image));
+    }
+
+    @Test
+    @DisplayName("Should refuse hosts on internal networks")
+    void testGetImage_RefusesLoopback() throws IOException {
+        // Given
+        ImageProxyService strict = newService(false, 512L * 1024 * 1024, 10L * 1024 * 1024);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> strict.getImage(url("/small.jpg")));
+        assertNull(hits.get("/small.jpg"));
+    }
+
+    @Test
+    @DisplayName("Should refuse schemes other than http and https")
+    void testGetImage_RefusesFileScheme() {
+        assertThrows(IllegalArgumentException.class, () -> service.getImage("file:///etc/passwd"));
+    }
+
+    @Test
+    @DisplayName("Should refuse what is not an image and not ask again straight away")
+    void testGetImage_NotAnImage() {
+        // When
+        assertThrows(IllegalArgumentException.class, () -> service.getImage(url("/page.html")));
+        assertThrows(IOException.class, () -> service.getImage(url("/page.html")));
+
+        // Then
+        assertEquals(1, hits.get("/page.html").get());
+    }
+
+    @Test
+    @DisplayName("Should refuse images larger than the download limit")
+    void testGetImage_TooLarge() throws IOException {
+        // Given
+        ImageProxyService limited = newService(true, 512L * 1024 * 1024, 100);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> limited.getImage(url("/small.jpg")));
+    }
+
+    @Test
+    @DisplayName("Should abort an origin that sends its body too slowly")
+    void testGetImage_SlowOrigin() {
+        // Given
+        ReflectionTestUtils.setField(service, "fetchTimeoutMs", 500L);
+        long start = System.nanoTime();
+
+        // When
+        IOException e = assertThrows(IOException.class, () -> service.getImage(url("/slow.jpg")));
+
+        // Then
+        assertTrue(e.getMessage().contains("took longer than"), e.getMessage());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently served image once over the size budget")
+    void testGetImage_EvictsLeastRecentlyUsed() throws IOException {
+        // Given
+        ImageProxyService bounded = newService(true, 1, 10L * 1024 * 1024);
+        Path wide = bounded.getImage(url("/wide.jpg"));
+
+        // When
+        Path small = bounded.getImage(url("/small.jpg"));
+
+        // Then
+        assertFalse(Files.exists(wide));
+        assertTrue(Files.exists(small));
+        assertEquals(1, bounded.getCachedCount());
+    }
+
+    @Test
+    @DisplayName("Should find images cached before a restart")
+    void testAfterPropertiesSet_RebuildsIndex() throws IOException {
+        // Given
+        service.getImage(url("/small.jpg"));
+
+        // When
+        ImageProxyService restarted = newService(true, 512L * 1024 * 1024, 10L * 1024 * 1024);
+        restarted.getImage(url("/small.jpg"));
+
+        // Then
+        assertEquals(1, restarted.getCachedCount());
+        assertEquals(1, hits.get("/small.jpg").get());
+    }
+
+    private ImageProxyService newService(boolean allowPrivate, long maxCacheBytes, long maxSourceBytes)
+            throws IOException {
+        ImageProxyService proxy = new ImageProxyService();
+        ReflectionTestUtils.setField(proxy, "cacheDir", cacheDir.toString());
+        ReflectionTestUtils.setField(proxy, "allowPrivateNetworks", allowPrivate);
+        ReflectionTestUtils.setField(proxy, "maxCacheBytes", maxCacheBytes);
+        ReflectionTestUtils.setField(proxy, "maxSourceBytes", maxSourceBytes);
+        proxy.afterPropertiesSet();
+        services.add(proxy);
+        return proxy;
+    }
+
+    private void serve(String path, String contentType, byte[] body) {
+        origin.createContext(path, exchange -> {
+            count(path);
+            exchange.getResponseHeaders().add("Content-Type", contentType);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+    }
+
+    private void count(String path) {
+        hits.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + origin.getAddress().getPort() + path;
+    }
+
+    private static byte[] image(int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+}
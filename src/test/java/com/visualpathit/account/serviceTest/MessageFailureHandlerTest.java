@@ -0,0 +1,159 @@
+package com.visualpathit.account.serviceTest;
+
+import com.visualpathit.account.service.MessageFailureHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for MessageFailureHandler
+ * Tests routing of failed messages through the retry tiers to the parking lot,
+ * and that a message only counts as moved once the broker confirms it
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MessageFailureHandler Unit Tests")
+class MessageFailureHandlerTest {
+
+    private static final String QUEUE = "facelink.post-activity";
+
+    @Mock
+    private RabbitTemplate amqpTemplate;
+
+    @InjectMocks
+    private MessageFailureHandler failureHandler;
+
+    /** Confirm the broker gives: true ack, false nack, null none */
+    private Boolean confirm = true;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(failureHandler, "confirmTimeoutMs", 50L);
+        lenient().doAnswer(invocation -> {
+            if (confirm != null) {
+                invocation.<CorrelationData>getArgument(3).getFuture()
+                        .complete(new CorrelationData.Confirm(confirm, confirm ? null : "nack"));
+            }
+            return null;
+        }).when(amqpTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    @DisplayName("Should send a first failure to the first retry tier")
+    void testHandle_FirstFailureGoesToFirstTier() {
+        // Given
+        Message message = MessageBuilder.withBody(new byte[0]).build();
+
+        // When
+        boolean moved = failureHandler.handle(QUEUE, message, new IllegalStateException("boom"), true);
+
+        // Then
+        assertTrue(moved);
+        verify(amqpTemplate).send(eq(""), eq(QUEUE + ".retry.1"), same(message), any(CorrelationData.class));
+        assertEquals(1, MessageFailureHandler.attemptsOf(message));
+        assertEquals(1L, failureHandler.getRetriedCount());
+    }
+
+    @Test
+    @DisplayName("Should park a message once every retry tier has been used")
+    void testHandle_ParksAfterLastTier() {
+        // Given
+        Message message = MessageBuilder.withBody(new byte[0])
+                .setHeader(MessageFailureHandler.HEADER_ATTEMPTS, MessageFailureHandler.RETRY_TIERS)
+                .build();
+
+        // When
+        boolean moved = failureHandler.handle(QUEUE, message, new IllegalStateException("boom"), true);
+
+        // Then
+        assertTrue(moved);
+        verify(amqpTemplate).send(eq(""), eq(QUEUE + ".parking-lot"), same(message), any(CorrelationData.class));
+        assertEquals(1L, failureHandler.getParkedCount());
+    }
+
+    @Test
+    @DisplayName("Should park non-retryable failures straight away")
+    void testHandle_NonRetryableIsParked() {
+        // Given
+        Message message = MessageBuilder.withBody(new byte[0]).build();
+
+        // When
+        failureHandler.handle(QUEUE, message, new IllegalArgumentException("unreadable"), false);
+
+        // Then
+        verify(amqpTemplate).send(eq(""), eq(QUEUE + ".parking-lot"), same(message), any(CorrelationData.class));
+        verify(amqpTemplate, never()).send(eq(""), eq(QUEUE + ".retry.1"), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    @DisplayName("Should count failures by reason")
+    void testGetFailureCounts_ByReason() {
+        // When
+        failureHandler.handle(QUEUE, MessageBuilder.withBody(new byte[0]).build(), new IllegalStateException("a"), true);
+        failureHandler.handle(QUEUE, MessageBuilder.withBody(new byte[0]).build(), new IllegalStateException("b"), true);
+        failureHandler.handle(QUEUE, MessageBuilder.withBody(new byte[0]).build(), new IllegalArgumentException("c"), false);
+
+        // Then
+        assertEquals(2L, failureHandler.getFailureCounts().get("IllegalStateException"));
+        assertEquals(1L, failureHandler.getFailureCounts().get("IllegalArgumentException"));
+    }
+
+    @Test
+    @DisplayName("Should report a message the broker nacked as not moved")
+    void testHandle_Nacked() {
+        // Given
+        confirm = false;
+
+        // When
+        boolean moved = failureHandler.handle(QUEUE, MessageBuilder.withBody(new byte[0]).build(),
+                new IllegalStateException("boom"), true);
+
+        // Then
+        assertFalse(moved);
+        assertEquals(0L, failureHandler.getRetriedCount());
+    }
+
+    @Test
+    @DisplayName("Should report a message as not moved when no confirm arrives in time")
+    void testHandle_ConfirmTimesOut() {
+        // Given
+        confirm = null;
+
+        // When
+        boolean moved = failureHandler.handle(QUEUE, MessageBuilder.withBody(new byte[0]).build(),
+                new IllegalArgumentException("unreadable"), false);
+
+        // Then
+        assertFalse(moved);
+        assertEquals(0L, failureHandler.getParkedCount());
+    }
+
+    @Test
+    @DisplayName("Should report a message as not moved when sending it fails, without throwing")
+    void testHandle_SendFails() {
+        // Given
+        doThrow(new AmqpException("channel closed")).when(amqpTemplate)
+                .send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        // When
+        boolean moved = failureHandler.handle(QUEUE, MessageBuilder.withBody(new byte[0]).build(),
+                new IllegalStateException("boom"), true);
+
+        // Then
+        assertFalse(moved);
+        assertEquals(0L, failureHandler.getRetriedCount());
+    }
+}
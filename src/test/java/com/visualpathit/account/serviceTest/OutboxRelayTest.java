@@ -0,0 +1,203 @@
+package com.visualpathit.account.serviceTest;
+
+import com.visualpathit.account.model.OutboxEvent;
+import com.visualpathit.account.repository.OutboxEventRepository;
+import com.visualpathit.account.service.OutboxRelay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OutboxRelay
+ * Tests ordering, deletion of the confirmed prefix only, and that broker I/O runs outside transactions
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxRelay Unit Tests")
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private RabbitTemplate amqpTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxRelay relay;
+
+    /** Confirm to give each event id: true ack, false nack, absent none */
+    private final Map<String, Boolean> confirms = new HashMap<>();
+    private final List<String> sent = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay();
+        ReflectionTestUtils.setField(relay, "outboxEventRepository", outboxEventRepository);
+        ReflectionTestUtils.setField(relay, "amqpTemplate", amqpTemplate);
+        ReflectionTestUtils.setField(relay, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(relay, "confirmTimeoutMs", 50L);
+
+        lenient().when(amqpTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(amqpTemplate));
+        lenient().doAnswer(invocation -> {
+            CorrelationData correlation = invocation.getArgument(3);
+            sent.add(correlation.getId());
+            Boolean ack = confirms.get(correlation.getId());
+            if (ack != null) {
+                correlation.getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            }
+            return null;
+        }).when(amqpTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    @DisplayName("Should publish in id order and delete every confirmed event")
+    void testRelayBatch_AllConfirmed() {
+        // Given
+        outbox(event(1, "e1"), event(2, "e2"), event(3, "e3"));
+        confirms.put("e1", true);
+        confirms.put("e2", true);
+        confirms.put("e3", true);
+
+        // When
+        int relayed = relay.relayBatch();
+
+        // Then
+        assertEquals(3, relayed);
+        assertEquals(List.of("e1", "e2", "e3"), sent);
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(outboxEventRepository, never()).release(any(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should delete only the prefix confirmed before a nack and hand back the rest")
+    void testRelayBatch_Nack() {
+        // Given
+        outbox(event(1, "e1"), event(2, "e2"), event(3, "e3"), event(4, "e4"));
+        confirms.put("e1", true);
+        confirms.put("e2", true);
+        confirms.put("e3", false);
+        confirms.put("e4", true);
+
+        // When
+        int relayed = relay.relayBatch();
+
+        // Then
+        assertEquals(2, relayed);
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(outboxEventRepository).release(eq(List.of(3L, 4L)), anyString());
+    }
+
+    @Test
+    @DisplayName("Should delete nothing when no confirm arrives in time")
+    void testRelayBatch_Timeout() {
+        // Given
+        outbox(event(1, "e1"), event(2, "e2"));
+
+        // When
+        int relayed = relay.relayBatch();
+
+        // Then
+        assertEquals(0, relayed);
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+        verify(outboxEventRepository).release(eq(List.of(1L, 2L)), anyString());
+    }
+
+    @Test
+    @DisplayName("Should hand the batch back when publishing fails")
+    void testRelayBatch_SendFails() {
+        // Given
+        outbox(event(1, "e1"));
+        doThrow(new IllegalStateException("connection refused")).when(amqpTemplate).invoke(any());
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> relay.relayBatch());
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+        verify(outboxEventRepository).release(eq(List.of(1L)), anyString());
+    }
+
+    @Test
+    @DisplayName("Should commit the claim before talking to the broker")
+    void testRelayBatch_NoTransactionDuringPublish() {
+        // Given
+        outbox(event(1, "e1"));
+        confirms.put("e1", true);
+
+        // When
+        relay.relayBatch();
+
+        // Then
+        InOrder order = inOrder(outboxEventRepository, transactionManager, amqpTemplate);
+        order.verify(outboxEventRepository).claim(eq(List.of(1L)), anyString(), any(LocalDateTime.class));
+        order.verify(transactionManager).commit(any());
+        order.verify(amqpTemplate).invoke(any());
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L));
+        order.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should leave the outbox alone while another relay publishes its head")
+    void testRelayBatch_HeadClaimedElsewhere() {
+        // Given
+        OutboxEvent head = event(1, "e1");
+        head.setClaimToken("other-relay");
+        head.setClaimedUntil(LocalDateTime.now().plusMinutes(1));
+        outbox(head, event(2, "e2"));
+
+        // When
+        int relayed = relay.relayBatch();
+
+        // Then
+        assertEquals(0, relayed);
+        verify(outboxEventRepository, never()).claim(any(), anyString(), any());
+        verifyNoInteractions(amqpTemplate);
+    }
+
+    @Test
+    @DisplayName("Should take over events whose claim has lapsed")
+    void testRelayBatch_LapsedClaim() {
+        // Given
+        OutboxEvent head = event(1, "e1");
+        head.setClaimToken("dead-relay");
+        head.setClaimedUntil(LocalDateTime.now().minusSeconds(1));
+        outbox(head);
+        confirms.put("e1", true);
+
+        // When / Then
+        assertEquals(1, relay.relayBatch());
+    }
+
+    private void outbox(OutboxEvent... events) {
+        when(outboxEventRepository.findOldestForUpdate(any(Pageable.class))).thenReturn(List.of(events));
+    }
+
+    private static OutboxEvent event(long id, String eventId) {
+        OutboxEvent event = new OutboxEvent(eventId, "facelink.events", "post.created", 1, new byte[]{1});
+        event.setId(id);
+        return event;
+    }
+}
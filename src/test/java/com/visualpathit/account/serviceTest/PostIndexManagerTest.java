@@ -0,0 +1,157 @@
+package com.visualpathit.account.serviceTest;
+
+import com.visualpathit.account.service.PostIndexManager;
+import com.visualpathit.account.utils.ElasticsearchUtil;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.IndicesClient;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.client.indices.GetIndexResponse;
+import org.elasticsearch.client.indices.PutIndexTemplateRequest;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.ReindexRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PostIndexManager
+ * Tests monthly index naming, the template aliases and the move out of the legacy index
+ */
+@DisplayName("PostIndexManager Unit Tests")
+class PostIndexManagerTest {
+
+    private RestHighLevelClient client;
+    private IndicesClient indices;
+    private BulkByScrollResponse reindexed;
+    private PostIndexManager manager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        client = mock(RestHighLevelClient.class);
+        indices = mock(IndicesClient.class);
+        when(client.indices()).thenReturn(indices);
+        when(indices.exists(any(GetIndexRequest.class), any(RequestOptions.class))).thenReturn(true);
+        GetIndexResponse monthly = mock(GetIndexResponse.class);
+        when(monthly.getIndices()).thenReturn(new String[0]);
+        when(indices.get(any(GetIndexRequest.class), any(RequestOptions.class))).thenReturn(monthly);
+        GetAliasesResponse aliases = mock(GetAliasesResponse.class);
+        when(aliases.getAliases()).thenReturn(Collections.emptyMap());
+        when(indices.getAlias(any(GetAliasesRequest.class), any(RequestOptions.class))).thenReturn(aliases);
+        reindexed = mock(BulkByScrollResponse.class);
+        when(reindexed.getBulkFailures()).thenReturn(Collections.emptyList());
+        when(reindexed.getSearchFailures()).thenReturn(Collections.emptyList());
+        when(client.reindex(any(ReindexRequest.class), any(RequestOptions.class))).thenReturn(reindexed);
+        ReflectionTestUtils.setField(ElasticsearchUtil.class, "client", client);
+
+        manager = new PostIndexManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(ElasticsearchUtil.class, "client", null);
+    }
+
+    @Test
+    @DisplayName("Should name the index after the post's creation month")
+    void testIndexNameFor_Month() {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2024, 3, 31, 23, 59);
+
+        // When / Then
+        assertEquals("posts-2024.03", PostIndexManager.indexNameFor(createdAt));
+    }
+
+    @Test
+    @DisplayName("Should use the current month when the creation time is unknown")
+    void testIndexNameFor_NullUsesCurrentMonth() {
+        assertEquals(YearMonth.now(), PostIndexManager.monthOf(PostIndexManager.indexNameFor(null)));
+    }
+
+    @Test
+    @DisplayName("Should parse the month back out of a monthly index name")
+    void testMonthOf_RoundTrip() {
+        assertEquals(YearMonth.of(2023, 12), PostIndexManager.monthOf("posts-2023.12"));
+    }
+
+    @Test
+    @DisplayName("Should ignore aliases and the legacy single index")
+    void testMonthOf_NotMonthly() {
+        assertNull(PostIndexManager.monthOf("posts"));
+        assertNull(PostIndexManager.monthOf(PostIndexManager.READ_ALIAS));
+        assertNull(PostIndexManager.monthOf(PostIndexManager.HOT_ALIAS));
+        assertNull(PostIndexManager.monthOf("users"));
+    }
+
+    @Test
+    @DisplayName("Should put new monthly indices behind both the read and hot aliases")
+    void testMaintain_TemplateAliases() throws Exception {
+        // When
+        manager.maintain();
+
+        // Then
+        ArgumentCaptor<PutIndexTemplateRequest> template = ArgumentCaptor.forClass(PutIndexTemplateRequest.class);
+        verify(indices).putTemplate(template.capture(), any(RequestOptions.class));
+        Set<String> aliases = template.getValue().aliases().stream().map(Alias::name).collect(Collectors.toSet());
+        assertEquals(Set.of(PostIndexManager.READ_ALIAS, PostIndexManager.HOT_ALIAS), aliases);
+    }
+
+    @Test
+    @DisplayName("Should copy the legacy posts into monthly indices before deleting it")
+    void testMaintain_MigratesLegacyIndex() throws Exception {
+        // When
+        manager.maintain();
+        manager.maintain();
+
+        // Then
+        ArgumentCaptor<ReindexRequest> request = ArgumentCaptor.forClass(ReindexRequest.class);
+        InOrder order = inOrder(client, indices);
+        order.verify(client).reindex(request.capture(), any(RequestOptions.class));
+        order.verify(indices).delete(argThat(PostIndexManagerTest::isLegacy), any(RequestOptions.class));
+        assertEquals(List.of("posts"), Arrays.asList(request.getValue().getSearchRequest().indices()));
+        assertEquals("create", request.getValue().getDestination().opType().getLowercase());
+        verify(client, times(1)).reindex(any(ReindexRequest.class), any(RequestOptions.class));
+    }
+
+    @Test
+    @DisplayName("Should keep the legacy index and try again when copying it fails")
+    void testMaintain_LegacyCopyFails() throws Exception {
+        // Given
+        BulkItemResponse.Failure failure = new BulkItemResponse.Failure("posts-2024.01", "_doc", "1",
+                new IllegalStateException("rejected"));
+        when(reindexed.getBulkFailures()).thenReturn(List.of(failure));
+
+        // When
+        manager.maintain();
+        manager.maintain();
+
+        // Then
+        verify(indices, never()).delete(argThat(PostIndexManagerTest::isLegacy), any(RequestOptions.class));
+        verify(client, times(2)).reindex(any(ReindexRequest.class), any(RequestOptions.class));
+    }
+
+    private static boolean isLegacy(DeleteIndexRequest request) {
+        return request != null && Arrays.asList(request.indices()).contains("posts");
+    }
+}
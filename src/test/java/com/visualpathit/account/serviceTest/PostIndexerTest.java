@@ -0,0 +1,92 @@
+package com.visualpathit.account.serviceTest;
+
+import com.visualpathit.account.service.PostIndexer;
+import com.visualpathit.account.utils.ElasticsearchUtil;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PostIndexer
+ * Tests the monthly index each update goes to and the handling of write-blocked months
+ */
+@DisplayName("PostIndexer Unit Tests")
+class PostIndexerTest {
+
+    private RestHighLevelClient client;
+    private PostIndexer postIndexer;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(RestHighLevelClient.class);
+        ReflectionTestUtils.setField(ElasticsearchUtil.class, "client", client);
+        postIndexer = new PostIndexer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(ElasticsearchUtil.class, "client", null);
+    }
+
+    @Test
+    @DisplayName("Should write an update to its post's creation month, not the current one")
+    void testFlush_WritesToCreationMonth() throws Exception {
+        // Given
+        postIndexer.enqueue(1L, document("2024-01-15T10:00"));
+        when(client.bulk(any(BulkRequest.class), any(RequestOptions.class)))
+                .thenReturn(new BulkResponse(new BulkItemResponse[0], 1));
+
+        // When
+        postIndexer.flush();
+
+        // Then
+        ArgumentCaptor<BulkRequest> request = ArgumentCaptor.forClass(BulkRequest.class);
+        verify(client).bulk(request.capture(), any(RequestOptions.class));
+        assertEquals("posts-2024.01", request.getValue().requests().get(0).index());
+    }
+
+    @Test
+    @DisplayName("Should drop and count updates rejected by a write-blocked month")
+    void testFlush_WriteBlockedMonth() throws Exception {
+        // Given
+        postIndexer.enqueue(1L, document("2024-01-15T10:00"));
+        ElasticsearchException block = new ElasticsearchException("Elasticsearch exception [type=cluster_block_exception, "
+                + "reason=index [posts-2024.01] blocked by: [FORBIDDEN/8/index write (api)];]");
+        BulkItemResponse item = new BulkItemResponse(0, DocWriteRequest.OpType.UPDATE,
+                new BulkItemResponse.Failure("posts-2024.01", "_doc", "1", block, RestStatus.FORBIDDEN));
+        when(client.bulk(any(BulkRequest.class), any(RequestOptions.class)))
+                .thenReturn(new BulkResponse(new BulkItemResponse[]{item}, 1));
+
+        // When
+        postIndexer.flush();
+
+        // Then
+        assertEquals(1L, postIndexer.getBlockedCount());
+        assertEquals(0, postIndexer.getPendingCount());
+    }
+
+    private static Map<String, Object> document(String createdAt) {
+        Map<String, Object> document = new HashMap<>();
+        document.put("id", 1L);
+        document.put("createdAt", createdAt);
+        return document;
+    }
+}
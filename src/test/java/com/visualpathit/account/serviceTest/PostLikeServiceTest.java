@@ -1,5 +1,6 @@
 package com.visualpathit.account.serviceTest;
 
+import com.visualpathit.account.event.PostLikedEvent;
 import com.visualpathit.account.model.Post;
 import com.visualpathit.account.model.PostLike;
 import com.visualpathit.account.model.User;
@@ -14,6 +15,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -36,6 +38,9 @@ class PostLikeServiceTest {
     @Mock
     private PostRepository postRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PostLikeService postLikeService;
 
@@ -64,6 +69,24 @@ class PostLikeServiceTest {
 
     // ========== TOGGLE LIKE TESTS ==========
 
+    @Test
+    @DisplayName("Should publish a like event carrying the direction of the toggle")
+    void testToggleLike_PublishesEvent() {
+        // Given
+        when(postRepository.findById(1L)).thenReturn(Optional.of(testPost));
+        when(postLikeRepository.existsByPostAndUser(testPost, testUser)).thenReturn(true);
+        when(postLikeRepository.countByPost(testPost)).thenReturn(0L);
+
+        // When
+        postLikeService.toggleLike(1L, testUser);
+
+        // Then
+        ArgumentCaptor<PostLikedEvent> captor = ArgumentCaptor.forClass(PostLikedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertFalse(captor.getValue().isLiked());
+        assertSame(testUser, captor.getValue().getUser());
+    }
+
     @Test
     @DisplayName("Should like post when user has not liked it")
     void testToggleLike_CreateLike() {
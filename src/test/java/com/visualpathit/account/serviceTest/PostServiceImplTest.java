@@ -1,5 +1,6 @@
 package com.visualpathit.account.serviceTest;
 
+import com.visualpathit.account.event.PostChangedEvent;
 import com.visualpathit.account.model.Post;
 import com.visualpathit.account.model.User;
 import com.visualpathit.account.repository.PostRepository;
@@ -12,6 +13,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -36,6 +38,9 @@ class PostServiceImplTest {
     @Mock
     private PostRepository postRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PostServiceImpl postService;
 
@@ -264,6 +269,21 @@ class PostServiceImplTest {
         assertTrue(savedPost.getCreatedAt().isBefore(LocalDateTime.now().plusSeconds(1)));
     }
 
+    @Test
+    @DisplayName("Should publish a change event for the saved post")
+    void testCreatePost_PublishesEvent() {
+        // Given
+        when(postRepository.save(any(Post.class))).thenReturn(testPost);
+
+        // When
+        postService.createPost("Test content", null, testAuthor);
+
+        // Then
+        ArgumentCaptor<PostChangedEvent> eventCaptor = ArgumentCaptor.forClass(PostChangedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertSame(testPost, eventCaptor.getValue().getPost());
+    }
+
     @Test
     @DisplayName("Should save existing post")
     void testSave_Success() {
@@ -0,0 +1,94 @@
+package com.visualpathit.account.serviceTest;
+
+import com.visualpathit.account.service.ProducerServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Unit tests for ProducerServiceImpl
+ * Tests that a failed batch sends each message once more only if it had not been sent
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProducerServiceImpl Unit Tests")
+class ProducerServiceImplTest {
+
+    @Mock
+    private RabbitTemplate amqpTemplate;
+
+    private ProducerServiceImpl producer;
+
+    private final CountDownLatch allQueued = new CountDownLatch(1);
+    private final AtomicInteger sendCalls = new AtomicInteger();
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // The first batch waits until every message is queued, so the second one holds several
+        doAnswer(invocation -> {
+            allQueued.await(5, TimeUnit.SECONDS);
+            return invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(amqpTemplate);
+        }).when(amqpTemplate).invoke(any());
+        doAnswer(invocation -> {
+            if (sendCalls.incrementAndGet() == 3) {
+                throw new AmqpException("channel closed");
+            }
+            Message message = invocation.getArgument(2);
+            sent.add(new String(message.getBody(), StandardCharsets.UTF_8));
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(amqpTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        producer = new ProducerServiceImpl();
+        ReflectionTestUtils.setField(producer, "amqpTemplate", amqpTemplate);
+        producer.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        producer.destroy();
+    }
+
+    @Test
+    @DisplayName("Should send again only the messages a failed batch had not sent")
+    void testPublish_SendFailsMidBatch() throws InterruptedException {
+        // Given
+        for (int i = 1; i <= 5; i++) {
+            producer.produceMessage("m" + i);
+        }
+        allQueued.countDown();
+
+        // When
+        long deadline = System.currentTimeMillis() + 5000;
+        while (producer.getConfirmedCount() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        // Then
+        assertEquals(List.of("m1", "m2", "m3", "m4", "m5"), sent);
+        assertEquals(6, sendCalls.get());
+        assertEquals(0, producer.getBufferedCount());
+    }
+}
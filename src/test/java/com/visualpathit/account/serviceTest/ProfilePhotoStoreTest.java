@@ -0,0 +1,229 @@
+package com.visualpathit.account.serviceTest;
+
+import com.visualpathit.account.model.User;
+import com.visualpathit.account.repository.UserRepository;
+import com.visualpathit.account.service.ProfilePhotoStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for ProfilePhotoStore
+ * Tests content keys, the sharded layout and its migration, reuse of stored photos
+ * and the garbage collection sweep
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProfilePhotoStore Unit Tests")
+class ProfilePhotoStoreTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ProfilePhotoStore store;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(store, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(store, "transactionTemplate", new TransactionTemplate(transactionManager));
+        Files.createDirectories(store.getProfilesDir());
+    }
+
+    @Test
+    @DisplayName("Should give identical uploads the same key and different uploads different keys")
+    void testCopyAndHash_KeysFollowContent() throws IOException {
+        // When
+        String first = store.copyAndHash(stream("same photo"), uploadDir.resolve("a.upload"));
+        String again = store.copyAndHash(stream("same photo"), uploadDir.resolve("b.upload"));
+        String other = store.copyAndHash(stream("other photo"), uploadDir.resolve("c.upload"));
+
+        // Then
+        assertEquals(first, again);
+        assertNotEquals(first, other);
+        assertTrue(ProfilePhotoStore.isImmutable(ProfilePhotoStore.renditionName(first, 300)));
+        assertEquals("same photo", Files.readString(uploadDir.resolve("a.upload")));
+    }
+
+    @Test
+    @DisplayName("Should only treat content-addressed renditions as immutable")
+    void testIsImmutable() {
+        assertTrue(ProfilePhotoStore.isImmutable("a".repeat(64) + "-96.jpg"));
+        assertFalse(ProfilePhotoStore.isImmutable("3f2c0a1e-5b7d-4c1e-9a2b-0d6e8f1a2b3c-96.jpg"));
+        assertFalse(ProfilePhotoStore.isImmutable("photo.png"));
+    }
+
+    @Test
+    @DisplayName("Should store a photo two directories down, named after its first hex digits")
+    void testPathOf_Sharded() {
+        // Given
+        String key = "ab12" + "0".repeat(60);
+
+        // Then
+        assertEquals(store.getProfilesDir().resolve("ab/12/" + key + "-96.jpg"), store.pathOf(key, 96));
+        assertEquals("/uploads/profiles/ab/12/" + key + "-96.jpg", store.urlOf(key, 96));
+    }
+
+    @Test
+    @DisplayName("Should spread names that do not start with hex digits over shards too")
+    void testShard_NonHexName() {
+        // When
+        String shard = ProfilePhotoStore.shard("portrait.png");
+
+        // Then
+        assertTrue(shard.matches("[0-9a-f]{2}/[0-9a-f]{2}"));
+        assertEquals(shard, ProfilePhotoStore.shard("portrait.png"));
+    }
+
+    @Test
+    @DisplayName("Should locate files in either layout")
+    void testLocate() throws IOException {
+        // Given
+        String key = "9".repeat(64);
+        writeRenditions(key, 0);
+        Path flat = Files.writeString(store.getProfilesDir().resolve("legacy.jpg"), "x");
+
+        // Then
+        assertEquals(store.pathOf(key, 40), store.locate(ProfilePhotoStore.renditionName(key, 40)));
+        assertEquals(flat, store.locate("legacy.jpg"));
+    }
+
+    @Test
+    @DisplayName("Should move flat files into their shard, repoint users, and only do it once")
+    void testMigrateFlatLayout() throws IOException {
+        // Given
+        String uuid = "3f2c0a1e-5b7d-4c1e-9a2b-0d6e8f1a2b3c";
+        Path flat = Files.writeString(store.getProfilesDir().resolve(uuid + "-300.jpg"), "x");
+        Path legacy = Files.writeString(store.getProfilesDir().resolve("legacy.jpg"), "y");
+
+        // When
+        int moved = store.migrateFlatLayout();
+
+        // Then
+        assertEquals(2, moved);
+        Path target = store.pathOf(uuid, 300);
+        assertTrue(Files.exists(target));
+        assertFalse(Files.exists(flat));
+        assertFalse(Files.exists(legacy));
+        assertEquals(store.getProfilesDir().resolve(ProfilePhotoStore.shard("legacy.jpg")).resolve("legacy.jpg"),
+                store.locate("legacy.jpg"));
+        verify(userRepository).relocateProfileImg(flat.toString(), target.toString(), store.urlOf(uuid, 300));
+        assertEquals(0, store.migrateFlatLayout());
+    }
+
+    @Test
+    @DisplayName("Should reuse a fully stored photo and restart its grace period")
+    void testReuse_Stored() throws IOException {
+        // Given
+        String key = "b".repeat(64);
+        writeRenditions(key, 2);
+
+        // When
+        boolean reused = store.reuse(key);
+
+        // Then
+        assertTrue(reused);
+        long age = System.currentTimeMillis() - Files.getLastModifiedTime(store.pathOf(key, 40)).toMillis();
+        assertTrue(age < TimeUnit.MINUTES.toMillis(1));
+    }
+
+    @Test
+    @DisplayName("Should not reuse a photo whose largest rendition is missing")
+    void testReuse_Incomplete() throws IOException {
+        // Given
+        String key = "c".repeat(64);
+        writeRenditions(key, 2);
+        Files.delete(store.pathOf(key, 300));
+
+        // When / Then
+        assertFalse(store.reuse(key));
+    }
+
+    @Test
+    @DisplayName("Should delete old unreferenced photos and keep referenced, recent and legacy files")
+    void testCollectGarbage() throws IOException {
+        // Given
+        String referenced = "d".repeat(64);
+        String orphan = "e".repeat(64);
+        String recent = "f".repeat(64);
+        writeRenditions(referenced, 2);
+        writeRenditions(orphan, 2);
+        writeRenditions(recent, 0);
+        Path legacy = Files.writeString(store.getProfilesDir().resolve("legacy.png"), "x");
+        age(legacy, 2);
+        Path flatOrphan = Files.writeString(store.getProfilesDir().resolve("1".repeat(64) + "-40.jpg"), "x");
+        age(flatOrphan, 2);
+        when(userRepository.findProfileImgPaths()).thenReturn(List.of(store.pathOf(referenced, 300).toString()));
+
+        // When
+        int deleted = store.collectGarbage();
+
+        // Then
+        assertEquals(User.AVATAR_SIZES.length + 1, deleted);
+        assertFalse(Files.exists(flatOrphan));
+        for (int size : User.AVATAR_SIZES) {
+            assertFalse(Files.exists(store.pathOf(orphan, size)));
+            assertTrue(Files.exists(store.pathOf(referenced, size)));
+            assertTrue(Files.exists(store.pathOf(recent, size)));
+        }
+        assertTrue(Files.exists(legacy));
+    }
+
+    @Test
+    @DisplayName("Should keep a photo a user switched to after the scan")
+    void testCollectGarbage_ReferencedSinceScan() throws IOException {
+        // Given
+        String key = "0".repeat(64);
+        writeRenditions(key, 2);
+        when(userRepository.findProfileImgPaths()).thenReturn(List.of());
+        when(userRepository.countByProfileImgPath(store.pathOf(key, 300).toString())).thenReturn(1L);
+
+        // When
+        int deleted = store.collectGarbage();
+
+        // Then
+        assertEquals(0, deleted);
+        assertTrue(Files.exists(store.pathOf(key, 300)));
+    }
+
+    private void writeRenditions(String key, int hoursOld) throws IOException {
+        for (int size : User.AVATAR_SIZES) {
+            Files.createDirectories(store.pathOf(key, size).getParent());
+            age(Files.writeString(store.pathOf(key, size), key + size), hoursOld);
+        }
+    }
+
+    private static void age(Path file, int hoursOld) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(hoursOld)));
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
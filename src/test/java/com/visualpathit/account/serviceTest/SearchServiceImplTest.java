@@ -0,0 +1,93 @@
+package com.visualpathit.account.serviceTest;
+
+import com.visualpathit.account.service.InvalidCursorException;
+import com.visualpathit.account.service.LocalSearchIndex;
+import com.visualpathit.account.service.SearchResults;
+import com.visualpathit.account.service.SearchService;
+import com.visualpathit.account.service.SearchServiceImpl;
+import com.visualpathit.account.utils.CircuitBreaker;
+import com.visualpathit.account.utils.ElasticsearchUtil;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for SearchServiceImpl
+ * Tests search_after cursor handling and the circuit breaker without an Elasticsearch cluster
+ */
+@DisplayName("SearchService Unit Tests")
+class SearchServiceImplTest {
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(ElasticsearchUtil.class, "client", null);
+        ReflectionTestUtils.setField(ElasticsearchUtil.class, "circuitBreaker", new CircuitBreaker(5, 30000));
+    }
+
+    @Test
+    @DisplayName("Should re-open the breaker when a half-open trial fails with an unexpected exception")
+    void testSearch_TrialFailsUnexpectedly() throws Exception {
+        // Given
+        CircuitBreaker breaker = new CircuitBreaker(1, 0);
+        breaker.recordFailure();
+        ReflectionTestUtils.setField(ElasticsearchUtil.class, "circuitBreaker", breaker);
+        RestHighLevelClient client = mock(RestHighLevelClient.class);
+        when(client.search(any(SearchRequest.class), any(RequestOptions.class)))
+                .thenThrow(new IllegalStateException("unexpected response"));
+        ReflectionTestUtils.setField(ElasticsearchUtil.class, "client", client);
+
+        LocalSearchIndex localSearchIndex = mock(LocalSearchIndex.class);
+        SearchResults local = new SearchResults();
+        when(localSearchIndex.isReady()).thenReturn(true);
+        when(localSearchIndex.search(anyString(), anyString(), isNull(), anyInt())).thenReturn(local);
+        SearchServiceImpl service = new SearchServiceImpl();
+        ReflectionTestUtils.setField(service, "localSearchIndex", localSearchIndex);
+        service.afterPropertiesSet();
+
+        // When
+        SearchResults results = service.search("alice", SearchService.TYPE_USERS, SearchService.SCOPE_ALL, null, 10);
+
+        // Then
+        assertSame(local, results);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should round-trip sort values through the cursor")
+    void testCursor_RoundTrip() {
+        String cursor = SearchServiceImpl.encodeCursor(new Object[]{1.25f, "posts", 42L});
+
+        Object[] decoded = SearchServiceImpl.decodeCursor(cursor);
+
+        assertEquals(1.25f, decoded[0]);
+        assertEquals("posts", decoded[1]);
+        assertEquals(42L, decoded[2]);
+    }
+
+    @Test
+    @DisplayName("Should produce URL-safe cursors")
+    void testCursor_UrlSafe() {
+        String cursor = SearchServiceImpl.encodeCursor(new Object[]{0.5f, "users", Long.MAX_VALUE});
+
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    @DisplayName("Should reject malformed cursors")
+    void testCursor_Malformed() {
+        assertThrows(InvalidCursorException.class, () -> SearchServiceImpl.decodeCursor("not a cursor!"));
+        assertThrows(InvalidCursorException.class, () -> SearchServiceImpl.decodeCursor("YWJj"));
+    }
+}
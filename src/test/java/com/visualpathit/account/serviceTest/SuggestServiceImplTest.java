@@ -0,0 +1,55 @@
+package com.visualpathit.account.serviceTest;
+
+import com.visualpathit.account.event.DomainEvent;
+import com.visualpathit.account.event.DomainEventCodec;
+import com.visualpathit.account.event.EventType;
+import com.visualpathit.account.service.SuggestServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SuggestServiceImpl
+ * Tests that names registered on any node reach the in-memory index
+ */
+@DisplayName("SuggestServiceImpl Unit Tests")
+class SuggestServiceImplTest {
+
+    private SuggestServiceImpl suggestService;
+
+    @BeforeEach
+    void setUp() {
+        suggestService = new SuggestServiceImpl();
+        ReflectionTestUtils.setField(suggestService, "loaded", true);
+    }
+
+    @Test
+    @DisplayName("Should add a name registered on another node")
+    void testOnUserRegistered_AddsName() {
+        // Given
+        DomainEvent event = new DomainEvent(EventType.USER_REGISTERED, 9L, 9L).with("username", "zoe");
+
+        // When
+        suggestService.onUserRegistered(DomainEventCodec.encode(event));
+        suggestService.onUserRegistered(DomainEventCodec.encode(event));
+
+        // Then
+        assertEquals(List.of("zoe"), suggestService.suggest("zo", 10));
+    }
+
+    @Test
+    @DisplayName("Should ignore an unreadable registration event")
+    void testOnUserRegistered_Unreadable() {
+        // When
+        suggestService.onUserRegistered(MessageBuilder.withBody(new byte[]{1}).build());
+
+        // Then
+        assertTrue(suggestService.suggest("z", 10).isEmpty());
+    }
+}
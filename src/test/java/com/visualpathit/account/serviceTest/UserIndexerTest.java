@@ -0,0 +1,87 @@
+package com.visualpathit.account.serviceTest;
+
+import com.visualpathit.account.event.UserChangedEvent;
+import com.visualpathit.account.model.User;
+import com.visualpathit.account.service.UserIndexer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UserIndexer
+ * Tests event coalescing without an Elasticsearch cluster
+ */
+@DisplayName("UserIndexer Unit Tests")
+class UserIndexerTest {
+
+    private UserIndexer userIndexer;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        userIndexer = new UserIndexer();
+
+        testUser = new User();
+        testUser.setId(1L);
+        testUser.setUsername("testuser");
+        testUser.setNationality("French");
+    }
+
+    @Test
+    @DisplayName("Should map user fields to the indexed document")
+    void testToDocument() {
+        Map<String, Object> document = UserIndexer.toDocument(testUser);
+
+        assertEquals("testuser", document.get("name"));
+        assertEquals("French", document.get("nationality"));
+        assertFalse(document.containsKey("password"));
+    }
+
+    @Test
+    @DisplayName("Should declare a mapping for every indexed field")
+    @SuppressWarnings("unchecked")
+    void testMapping_CoversDocument() {
+        Map<String, Object> properties = (Map<String, Object>) UserIndexer.mapping().get("properties");
+
+        for (String field : UserIndexer.toDocument(testUser).keySet()) {
+            assertTrue(properties.containsKey(field), "unmapped field " + field);
+        }
+    }
+
+    @Test
+    @DisplayName("Should coalesce rapid changes to the same user into one pending update")
+    void testOnUserChanged_CoalescesSameUser() {
+        userIndexer.onUserChanged(new UserChangedEvent(testUser, true));
+        testUser.setNationality("Belgian");
+        userIndexer.onUserChanged(new UserChangedEvent(testUser, false));
+
+        assertEquals(1, userIndexer.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Should keep separate pending updates for different users")
+    void testOnUserChanged_DistinctUsers() {
+        User other = new User();
+        other.setId(2L);
+        other.setUsername("otheruser");
+
+        userIndexer.onUserChanged(new UserChangedEvent(testUser, false));
+        userIndexer.onUserChanged(new UserChangedEvent(other, false));
+
+        assertEquals(2, userIndexer.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Should ignore events for users without an id")
+    void testOnUserChanged_UnsavedUser() {
+        testUser.setId(null);
+
+        userIndexer.onUserChanged(new UserChangedEvent(testUser, true));
+
+        assertEquals(0, userIndexer.getPendingCount());
+    }
+}
@@ -1,5 +1,7 @@
 package com.visualpathit.account.serviceTest;
 
+import com.visualpathit.account.event.ProfilePhotoChangedEvent;
+import com.visualpathit.account.event.UserChangedEvent;
 import com.visualpathit.account.model.Role;
 import com.visualpathit.account.model.User;
 import com.visualpathit.account.repository.RoleRepository;
@@ -9,9 +11,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.util.Arrays;
@@ -20,6 +24,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -40,6 +45,9 @@ class UserServiceImplTest {
     @Mock
     private BCryptPasswordEncoder bCryptPasswordEncoder;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -136,6 +144,65 @@ class UserServiceImplTest {
         verify(userRepository).save(testUser);
     }
 
+    @Test
+    @DisplayName("Should publish a creation event when a user registers")
+    void testSave_PublishesCreatedEvent() {
+        // Given
+        when(bCryptPasswordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(roleRepository.findByName("ROLE_USER")).thenReturn(userRole);
+
+        // When
+        userService.save(testUser);
+
+        // Then
+        ArgumentCaptor<UserChangedEvent> captor = ArgumentCaptor.forClass(UserChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertSame(testUser, captor.getValue().getUser());
+        assertTrue(captor.getValue().isCreated());
+    }
+
+    @Test
+    @DisplayName("Should publish an update event when a profile is updated")
+    void testUpdate_PublishesUpdatedEvent() {
+        // When
+        userService.update(testUser);
+
+        // Then
+        ArgumentCaptor<UserChangedEvent> captor = ArgumentCaptor.forClass(UserChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertSame(testUser, captor.getValue().getUser());
+        assertFalse(captor.getValue().isCreated());
+    }
+
+    @Test
+    @DisplayName("Should update only the photo columns and publish photo events")
+    void testUpdateProfilePhoto_TargetedUpdate() {
+        // Given
+        when(userRepository.updateProfileImg(1L, "/uploads/profiles/a.jpg", "/data/a.jpg")).thenReturn(1);
+        when(userRepository.findById(1L)).thenReturn(testUser);
+
+        // When
+        userService.updateProfilePhoto(1L, "/uploads/profiles/a.jpg", "/data/a.jpg");
+
+        // Then
+        verify(userRepository, never()).save(any(User.class));
+        verify(eventPublisher).publishEvent(any(UserChangedEvent.class));
+        verify(eventPublisher).publishEvent(any(ProfilePhotoChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should publish nothing when the user no longer exists")
+    void testUpdateProfilePhoto_UnknownUser() {
+        // Given
+        when(userRepository.updateProfileImg(anyLong(), anyString(), anyString())).thenReturn(0);
+
+        // When
+        userService.updateProfilePhoto(99L, "/uploads/profiles/a.jpg", "/data/a.jpg");
+
+        // Then
+        verifyNoInteractions(eventPublisher);
+    }
+
     @Test
     @DisplayName("Should find user by username")
     void testFindByUsername_Success() {
@@ -0,0 +1,83 @@
+package com.visualpathit.account.utilsTest;
+
+import com.visualpathit.account.utils.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CircuitBreaker
+ * Tests state transitions against a controllable clock
+ */
+@DisplayName("CircuitBreaker Unit Tests")
+class CircuitBreakerTest {
+
+    private AtomicLong now;
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(0);
+        breaker = new CircuitBreaker(3, 1000, now::get);
+    }
+
+    @Test
+    @DisplayName("Should stay closed below the failure threshold")
+    void testClosed_BelowThreshold() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    @DisplayName("Should open after consecutive failures and reject requests")
+    void testOpen_AfterThreshold() {
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    @DisplayName("Should let a single trial through once the open period has elapsed")
+    void testHalfOpen_SingleTrial() {
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+
+        // When
+        now.set(1000);
+
+        // Then
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    @DisplayName("Should close on a successful trial and re-open on a failed one")
+    void testHalfOpen_Outcome() {
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+        now.set(1000);
+        breaker.allowRequest();
+
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        now.set(2000);
+        breaker.allowRequest();
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+}
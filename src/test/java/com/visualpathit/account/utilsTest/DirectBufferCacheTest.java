@@ -0,0 +1,111 @@
+package com.visualpathit.account.utilsTest;
+
+import com.visualpathit.account.utils.DirectBufferCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DirectBufferCache
+ * Tests the byte bound, LRU eviction and independence of readers
+ */
+@DisplayName("DirectBufferCache Unit Tests")
+class DirectBufferCacheTest {
+
+    @Test
+    @DisplayName("Should keep a copy off the heap along with its metadata")
+    void testPutGet() {
+        // Given
+        DirectBufferCache<String, String> cache = new DirectBufferCache<>(100, 50);
+        ByteBuffer source = bytes("hello");
+
+        // When
+        cache.put("a", "meta", source);
+        source.put(0, (byte) 'j');
+        DirectBufferCache.Entry<String> entry = cache.get("a");
+
+        // Then
+        assertEquals("meta", entry.getMetadata());
+        assertTrue(entry.getContent().isDirect());
+        assertEquals("hello", text(entry.getContent()));
+        assertEquals(5, cache.getUsedBytes());
+    }
+
+    @Test
+    @DisplayName("Should evict least recently used entries once over the byte budget")
+    void testPut_EvictsByBytes() {
+        // Given
+        DirectBufferCache<String, String> cache = new DirectBufferCache<>(10, 10);
+        cache.put("a", "", bytes("aaaa"));
+        cache.put("b", "", bytes("bbbb"));
+        cache.get("a");
+
+        // When
+        cache.put("c", "", bytes("cccc"));
+
+        // Then
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(8, cache.getUsedBytes());
+    }
+
+    @Test
+    @DisplayName("Should refuse contents larger than an entry may be")
+    void testPut_TooLarge() {
+        // Given
+        DirectBufferCache<String, String> cache = new DirectBufferCache<>(100, 3);
+
+        // When / Then
+        assertNull(cache.put("a", "", bytes("abcd")));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should give each reader its own position")
+    void testGetContent_IndependentReaders() {
+        // Given
+        DirectBufferCache<String, String> cache = new DirectBufferCache<>(100, 50);
+        cache.put("a", "", bytes("hello"));
+
+        // When
+        ByteBuffer first = cache.get("a").getContent();
+        first.position(3);
+        ByteBuffer second = cache.get("a").getContent();
+
+        // Then
+        assertEquals("hello", text(second));
+        assertThrows(ReadOnlyBufferException.class, () -> second.put(0, (byte) 'x'));
+        assertEquals(2, cache.getHitCount());
+    }
+
+    @Test
+    @DisplayName("Should release the budget of removed entries")
+    void testRemove() {
+        // Given
+        DirectBufferCache<String, String> cache = new DirectBufferCache<>(100, 50);
+        cache.put("a", "", bytes("hello"));
+
+        // When
+        cache.remove("a");
+
+        // Then
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getUsedBytes());
+    }
+
+    private static ByteBuffer bytes(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String text(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,83 @@
+package com.visualpathit.account.utilsTest;
+
+import com.visualpathit.account.utils.ExpiringCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ExpiringCache
+ * Uses a controllable clock instead of sleeping
+ */
+@DisplayName("ExpiringCache Unit Tests")
+class ExpiringCacheTest {
+
+    private AtomicLong now;
+    private ExpiringCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000);
+        cache = new ExpiringCache<>(100, 2, now::get);
+    }
+
+    @Test
+    @DisplayName("Should return a value before it expires")
+    void testGet_BeforeExpiry() {
+        cache.put("a", "1");
+        now.addAndGet(99);
+
+        assertEquals("1", cache.get("a"));
+    }
+
+    @Test
+    @DisplayName("Should keep a live value and replace an expired one on putIfAbsent")
+    void testPutIfAbsent() {
+        cache.put("a", "1");
+
+        assertEquals("1", cache.putIfAbsent("a", "2"));
+        now.addAndGet(100);
+        assertNull(cache.putIfAbsent("a", "3"));
+        assertEquals("3", cache.get("a"));
+    }
+
+    @Test
+    @DisplayName("Should drop a value once its TTL has elapsed")
+    void testGet_AfterExpiry() {
+        cache.put("a", "1");
+        now.addAndGet(100);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entry when full")
+    void testPut_EvictsLeastRecentlyUsed() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    @DisplayName("Should remove entries explicitly")
+    void testRemoveAndClear() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        cache.remove("a");
+        assertNull(cache.get("a"));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
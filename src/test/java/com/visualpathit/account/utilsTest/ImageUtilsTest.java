@@ -0,0 +1,96 @@
+package com.visualpathit.account.utilsTest;
+
+import com.visualpathit.account.utils.ImageUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ImageUtils
+ * Tests region reading, subsampling and the pixel limit on generated images
+ */
+@DisplayName("ImageUtils Unit Tests")
+class ImageUtilsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should decode only the centred square, subsampled close to the target size")
+    void testReadCenteredSquare_Subsampled() throws IOException {
+        // Given: 1600x1000 with a red centre square and blue side bands
+        BufferedImage source = new BufferedImage(1600, 1000, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = source.createGraphics();
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(0, 0, 1600, 1000);
+        graphics.setColor(Color.RED);
+        graphics.fillRect(300, 0, 1000, 1000);
+        graphics.dispose();
+        Path file = tempDir.resolve("wide.png");
+        ImageIO.write(source, "png", file.toFile());
+
+        // When
+        BufferedImage square = ImageUtils.readCenteredSquare(file, 300, 10_000_000L);
+
+        // Then
+        assertEquals(square.getWidth(), square.getHeight());
+        assertTrue(square.getWidth() >= 300 && square.getWidth() < 600, "side " + square.getWidth());
+        assertEquals(Color.RED.getRGB(), square.getRGB(0, 0));
+        assertEquals(Color.RED.getRGB(), square.getRGB(square.getWidth() - 1, square.getHeight() - 1));
+    }
+
+    @Test
+    @DisplayName("Should keep small images at full resolution")
+    void testReadCenteredSquare_SmallImage() throws IOException {
+        // Given
+        Path file = tempDir.resolve("small.png");
+        ImageIO.write(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+
+        // When
+        BufferedImage square = ImageUtils.readCenteredSquare(file, 300, 10_000_000L);
+
+        // Then
+        assertEquals(100, square.getWidth());
+        assertEquals(100, square.getHeight());
+    }
+
+    @Test
+    @DisplayName("Should refuse images above the pixel limit before decoding them")
+    void testReadCenteredSquare_PixelLimit() throws IOException {
+        // Given
+        Path file = tempDir.resolve("big.png");
+        ImageIO.write(new BufferedImage(2000, 2000, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> ImageUtils.readCenteredSquare(file, 300, 1_000_000L));
+    }
+
+    @Test
+    @DisplayName("Should reject files that are not images")
+    void testReadCenteredSquare_NotAnImage() throws IOException {
+        // Given
+        Path file = Files.write(tempDir.resolve("notes.txt"), "hello".getBytes());
+
+        // When / Then
+        assertThrows(IOException.class, () -> ImageUtils.readCenteredSquare(file, 300, 10_000_000L));
+    }
+
+    @Test
+    @DisplayName("Should never subsample below the requested size")
+    void testSubsampling() {
+        assertEquals(1, ImageUtils.subsampling(299, 300));
+        assertEquals(1, ImageUtils.subsampling(599, 300));
+        assertEquals(2, ImageUtils.subsampling(600, 300));
+        assertEquals(13, ImageUtils.subsampling(4000, 300));
+    }
+}
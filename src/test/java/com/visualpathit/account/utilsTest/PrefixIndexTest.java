@@ -0,0 +1,73 @@
+package com.visualpathit.account.utilsTest;
+
+import com.visualpathit.account.utils.PrefixIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PrefixIndex
+ * Tests prefix lookup and incremental inserts
+ */
+@DisplayName("PrefixIndex Unit Tests")
+class PrefixIndexTest {
+
+    private PrefixIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PrefixIndex();
+        index.addAll(Arrays.asList("alice", "Albert", "bob", "alina", null, ""));
+    }
+
+    @Test
+    @DisplayName("Should return names matching the prefix regardless of case")
+    void testFind_CaseInsensitive() {
+        List<String> result = index.find("AL", 10);
+
+        assertEquals(Arrays.asList("Albert", "alice", "alina"), result);
+    }
+
+    @Test
+    @DisplayName("Should honour the limit")
+    void testFind_Limit() {
+        assertEquals(Arrays.asList("Albert", "alice"), index.find("al", 2));
+    }
+
+    @Test
+    @DisplayName("Should return nothing for an unknown prefix or empty input")
+    void testFind_NoMatch() {
+        assertTrue(index.find("zed", 10).isEmpty());
+        assertTrue(index.find("", 10).isEmpty());
+        assertTrue(index.find(null, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should insert new names in order and ignore duplicates")
+    void testAdd_KeepsOrderAndDeduplicates() {
+        // When
+        index.add("alfred");
+        index.add("alice");
+
+        // Then
+        assertEquals(5, index.size());
+        assertEquals(Arrays.asList("Albert", "alfred", "alice", "alina"), index.find("al", 10));
+    }
+
+    @Test
+    @DisplayName("Should keep names added before a bulk load")
+    void testAddAll_MergesWithExisting() {
+        index.add("carol");
+
+        index.addAll(Arrays.asList("bob", "dave"));
+
+        assertEquals(Arrays.asList("bob", "carol", "dave"), Arrays.asList(
+                index.find("b", 1).get(0), index.find("c", 1).get(0), index.find("d", 1).get(0)));
+        assertEquals(6, index.size());
+    }
+}
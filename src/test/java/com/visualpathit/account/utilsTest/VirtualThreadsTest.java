@@ -0,0 +1,75 @@
+package com.visualpathit.account.utilsTest;
+
+import com.visualpathit.account.utils.VirtualThreads;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VirtualThreads
+ * Tests thread naming, the platform fallback and the concurrency cap
+ */
+@DisplayName("VirtualThreads Unit Tests")
+class VirtualThreadsTest {
+
+    @Test
+    @DisplayName("Should name platform threads with the prefix and make them daemons")
+    void testThreadFactory_Platform() {
+        // When
+        Thread thread = VirtualThreads.threadFactory("worker-", false).newThread(() -> { });
+
+        // Then
+        assertEquals("worker-0", thread.getName());
+        assertTrue(thread.isDaemon());
+    }
+
+    @Test
+    @DisplayName("Should always give a working factory when virtual threads are requested")
+    void testThreadFactory_VirtualOrFallback() throws InterruptedException {
+        // Given
+        CountDownLatch ran = new CountDownLatch(1);
+
+        // When
+        Thread thread = VirtualThreads.threadFactory("worker-", true).newThread(ran::countDown);
+        thread.start();
+
+        // Then
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals("worker-0", thread.getName());
+    }
+
+    @Test
+    @DisplayName("Should never run more tasks at once than the cap")
+    void testNewBoundedExecutor_RespectsCap() throws InterruptedException {
+        // Given
+        ExecutorService executor = VirtualThreads.newBoundedExecutor("capped-", 2, true);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(10);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        // Then
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(peak.get() <= 2);
+        executor.shutdown();
+    }
+}